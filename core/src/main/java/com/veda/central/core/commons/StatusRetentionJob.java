@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.core.commons;
+
+import com.veda.central.core.repo.commons.StatusUpdaterRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically removes {@code event_metadata} rows older than the configured retention period. Rows are deleted
+ * in bounded chunks along the time index so a single purge never holds long locks on the table.
+ */
+@Component
+public class StatusRetentionJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatusRetentionJob.class);
+
+    private final StatusUpdaterRepository repository;
+    private final long retentionDays;
+    private final long intervalMinutes;
+    private final int deleteBatchSize;
+
+    private ScheduledExecutorService scheduler;
+
+    public StatusRetentionJob(StatusUpdaterRepository repository,
+                              @Value("${status.retention.days:90}") long retentionDays,
+                              @Value("${status.retention.interval.minutes:60}") long intervalMinutes,
+                              @Value("${status.retention.delete.batch.size:5000}") int deleteBatchSize) {
+        this.repository = repository;
+        this.retentionDays = retentionDays;
+        this.intervalMinutes = Math.max(1, intervalMinutes);
+        this.deleteBatchSize = Math.max(1, deleteBatchSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (retentionDays <= 0) {
+            LOGGER.info("Operation status retention is disabled");
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "status-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::purge, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public void purge() {
+        try {
+            Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+            long total = 0;
+            int deleted;
+            do {
+                deleted = repository.deleteOlderThan(cutoff, deleteBatchSize);
+                total += deleted;
+            } while (deleted == deleteBatchSize && !Thread.currentThread().isInterrupted());
+
+            if (total > 0) {
+                LOGGER.info("Removed {} operation status events older than {}", total, cutoff);
+            }
+
+        } catch (Exception ex) {
+            LOGGER.error("Error occurred while purging operation status events, reason: " + ex.getMessage(), ex);
+        }
+    }
+}
@@ -22,23 +22,110 @@ package com.veda.central.core.commons;
 import com.veda.central.core.model.commons.OperationStatus;
 import com.veda.central.core.model.commons.StatusEntity;
 import com.veda.central.core.repo.commons.StatusUpdaterRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-
+/**
+ * Records operation events in {@code event_metadata} using a write-behind pipeline. Events are placed on a bounded,
+ * lock-free queue and a background writer inserts them in batches, so the database insert is no longer on the
+ * latency path of the calling operation.
+ */
 @Component
 public class StatusUpdater {
 
     private final Logger LOGGER = LoggerFactory.getLogger(StatusUpdater.class);
 
+    /**
+     * What to do with an event when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Persist the event synchronously on the calling thread, so no event is lost
+         */
+        WRITE_THROUGH,
+        /**
+         * Discard the event and count it as dropped
+         */
+        DROP
+    }
+
     private final StatusUpdaterRepository repository;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final OverflowPolicy overflowPolicy;
 
+    private final Queue<PendingStatus> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Object writeLock = new Object();
 
-    public StatusUpdater(StatusUpdaterRepository repository) {
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writeThroughCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+    private final AtomicLong maxLatencyMillis = new AtomicLong();
+    private long lastReportedDropped;
+
+    private volatile ScheduledExecutorService writer;
+
+
+    public StatusUpdater(StatusUpdaterRepository repository,
+                         @Value("${status.updater.queue.capacity:10000}") int queueCapacity,
+                         @Value("${status.updater.batch.size:100}") int batchSize,
+                         @Value("${status.updater.flush.interval.millis:500}") long flushIntervalMillis,
+                         @Value("${status.updater.overflow.policy:WRITE_THROUGH}") OverflowPolicy overflowPolicy) {
         this.repository = repository;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMillis = Math.max(10, flushIntervalMillis);
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @PostConstruct
+    public void start() {
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "status-updater-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ScheduledExecutorService executor = writer;
+        writer = null;
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(flushIntervalMillis * 2, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushQuietly();
+        LOGGER.info("Status updater stopped: enqueued {}, written {}, write-through {}, dropped {}, failed {}, " +
+                        "average latency {} ms, max latency {} ms", getEnqueuedCount(), getWrittenCount(),
+                getWriteThroughCount(), getDroppedCount(), getFailedCount(), getAverageLatencyMillis(), getMaxLatencyMillis());
     }
 
     public void updateStatus(String method, OperationStatus status, long traceId, String performedBy) {
@@ -48,7 +135,33 @@ public class StatusUpdater {
             statusEntity.setState(status.name());
             statusEntity.setTraceId(traceId);
             statusEntity.setPerformedBy(performedBy);
-            repository.save(statusEntity);
+            statusEntity.setTime(new Date());
+            PendingStatus pending = new PendingStatus(statusEntity, System.nanoTime());
+
+            if (writer == null) {
+                writeThrough(pending);
+                return;
+            }
+
+            if (queueSize.incrementAndGet() > queueCapacity) {
+                queueSize.decrementAndGet();
+                if (overflowPolicy == OverflowPolicy.DROP) {
+                    droppedCount.incrementAndGet();
+                } else {
+                    writeThrough(pending);
+                }
+                return;
+            }
+
+            queue.offer(pending);
+            enqueuedCount.incrementAndGet();
+
+            if (queueSize.get() >= batchSize && flushRequested.compareAndSet(false, true)) {
+                ScheduledExecutorService executor = writer;
+                if (executor != null) {
+                    executor.execute(this::flushQuietly);
+                }
+            }
 
         } catch (Exception ex) {
             LOGGER.error("Status update failed for event " + method + " and traceId " + traceId);
@@ -56,7 +169,147 @@ public class StatusUpdater {
     }
 
     public List<StatusEntity> getOperationStatus(long traceId) {
+        // Make the caller's own recent events visible before reading them back
+        flushQuietly();
         return repository.findAllByTraceId(traceId);
     }
 
+    /**
+     * Returns a page of the events recorded for the trace, ordered by time. A non-positive limit returns all events.
+     */
+    public List<StatusEntity> getOperationStatus(long traceId, int offset, int limit) {
+        if (limit <= 0) {
+            return getOperationStatus(traceId);
+        }
+        flushQuietly();
+        return repository.findPageByTraceId(traceId, limit, Math.max(0, offset));
+    }
+
+    /**
+     * Writes all queued events to the database in batches.
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            flushRequested.set(false);
+            List<PendingStatus> batch = new ArrayList<>(batchSize);
+            PendingStatus pending;
+            while ((pending = queue.poll()) != null) {
+                queueSize.decrementAndGet();
+                batch.add(pending);
+                if (batch.size() == batchSize) {
+                    writeBatch(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+            }
+
+            long dropped = droppedCount.get();
+            if (dropped != lastReportedDropped) {
+                LOGGER.warn("Status updater queue overflowed, {} events dropped so far", dropped);
+                lastReportedDropped = dropped;
+            }
+        }
+    }
+
+    public long getEnqueuedCount() {
+        return enqueuedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getWriteThroughCount() {
+        return writeThroughCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public int getQueueSize() {
+        return queueSize.get();
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis.get();
+    }
+
+    public long getAverageLatencyMillis() {
+        long written = writtenCount.get();
+        return written == 0 ? 0 : totalLatencyMillis.get() / written;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception ex) {
+            LOGGER.error("Status updater flush failed", ex);
+        }
+    }
+
+    private void writeBatch(List<PendingStatus> batch) {
+        List<StatusEntity> entities = new ArrayList<>(batch.size());
+        for (PendingStatus pending : batch) {
+            entities.add(pending.entity);
+        }
+
+        try {
+            // New entities are persisted in one transaction and grouped into JDBC batches by Hibernate
+            repository.saveAll(entities);
+            for (PendingStatus pending : batch) {
+                recordWritten(pending);
+            }
+
+        } catch (Exception ex) {
+            LOGGER.warn("Batch insert of {} status events failed, retrying individually: {}", batch.size(), ex.getMessage());
+            for (PendingStatus pending : batch) {
+                pending.entity.setId(null);
+                try {
+                    repository.save(pending.entity);
+                    recordWritten(pending);
+                } catch (Exception e) {
+                    failedCount.incrementAndGet();
+                    LOGGER.error("Status update failed for event " + pending.entity.getEvent() + " and traceId "
+                            + pending.entity.getTraceId());
+                }
+            }
+        }
+    }
+
+    private void writeThrough(PendingStatus pending) {
+        writeThroughCount.incrementAndGet();
+        try {
+            repository.save(pending.entity);
+            recordWritten(pending);
+        } catch (Exception ex) {
+            failedCount.incrementAndGet();
+            LOGGER.error("Status update failed for event " + pending.entity.getEvent() + " and traceId "
+                    + pending.entity.getTraceId());
+        }
+    }
+
+    private void recordWritten(PendingStatus pending) {
+        long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pending.enqueuedAt);
+        writtenCount.incrementAndGet();
+        totalLatencyMillis.addAndGet(latency);
+        maxLatencyMillis.accumulateAndGet(latency, Math::max);
+    }
+
+    private static final class PendingStatus {
+
+        private final StatusEntity entity;
+        private final long enqueuedAt;
+
+        private PendingStatus(StatusEntity entity, long enqueuedAt) {
+            this.entity = entity;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
 }
@@ -20,9 +20,12 @@
 package com.veda.central.core.mapper.user;
 
 import com.veda.central.core.model.user.AttributeUpdateMetadata;
+import com.veda.central.core.model.user.UserAttribute;
 import com.veda.central.core.model.user.UserProfile;
+import com.veda.central.core.model.user.UserRole;
 import com.veda.central.core.user.profile.api.UserProfileAttributeUpdateMetadata;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
@@ -62,7 +65,7 @@ public class AttributeUpdateMetadataMapper {
             metadataSet.add(attributeUpdateMetadata);
         }
 
-        if (!oldProf.getEmailAddress().equals(newProf.getEmailAddress())) {
+        if (!Objects.equals(oldProf.getEmailAddress(), newProf.getEmailAddress())) {
             AttributeUpdateMetadata attributeUpdateMetadata = new AttributeUpdateMetadata();
             attributeUpdateMetadata.setUserProfile(newProf);
             attributeUpdateMetadata.setUpdatedFieldKey("emailAddress");
@@ -71,7 +74,7 @@ public class AttributeUpdateMetadataMapper {
             metadataSet.add(attributeUpdateMetadata);
         }
 
-        if (!oldProf.getFirstName().equals(newProf.getFirstName())) {
+        if (!Objects.equals(oldProf.getFirstName(), newProf.getFirstName())) {
             AttributeUpdateMetadata attributeUpdateMetadata = new AttributeUpdateMetadata();
             attributeUpdateMetadata.setUserProfile(newProf);
             attributeUpdateMetadata.setUpdatedFieldKey("firstName");
@@ -80,7 +83,7 @@ public class AttributeUpdateMetadataMapper {
             metadataSet.add(attributeUpdateMetadata);
         }
 
-        if (!oldProf.getLastName().equals(newProf.getLastName())) {
+        if (!Objects.equals(oldProf.getLastName(), newProf.getLastName())) {
             AttributeUpdateMetadata attributeUpdateMetadata = new AttributeUpdateMetadata();
             attributeUpdateMetadata.setUserProfile(newProf);
             attributeUpdateMetadata.setUpdatedFieldKey("lastName");
@@ -93,6 +96,33 @@ public class AttributeUpdateMetadataMapper {
     }
 
 
+    /**
+     * Creates a set of AttributeUpdateMetadata objects describing the attributes and roles added to and removed
+     * from a UserProfile.
+     *
+     * @param profile           The UserProfile the changes belong to.
+     * @param addedAttributes   The attribute rows added to the UserProfile.
+     * @param removedAttributes The attribute rows removed from the UserProfile.
+     * @param addedRoles        The role rows added to the UserProfile.
+     * @param removedRoles      The role rows removed from the UserProfile.
+     * @param updatedBy         The user who updated the UserProfile.
+     * @return A set of AttributeUpdateMetadata objects, one per added or removed row.
+     */
+    public static Set<AttributeUpdateMetadata> createAttributeUpdateMetadataEntity(UserProfile profile,
+                                                                                   Collection<UserAttribute> addedAttributes,
+                                                                                   Collection<UserAttribute> removedAttributes,
+                                                                                   Collection<UserRole> addedRoles,
+                                                                                   Collection<UserRole> removedRoles,
+                                                                                   String updatedBy) {
+        Set<AttributeUpdateMetadata> metadataSet = new HashSet<>();
+        addedAttributes.forEach(atr -> metadataSet.add(createMetadata(profile, "attribute:" + atr.getKey(), "added: " + atr.getValue(), updatedBy)));
+        removedAttributes.forEach(atr -> metadataSet.add(createMetadata(profile, "attribute:" + atr.getKey(), "removed: " + atr.getValue(), updatedBy)));
+        addedRoles.forEach(role -> metadataSet.add(createMetadata(profile, role.getType() + "Role", "added: " + role.getValue(), updatedBy)));
+        removedRoles.forEach(role -> metadataSet.add(createMetadata(profile, role.getType() + "Role", "removed: " + role.getValue(), updatedBy)));
+        return metadataSet;
+    }
+
+
     /**
      * Creates a UserProfileAttributeUpdateMetadata object from an AttributeUpdateMetadata object.
      *
@@ -107,4 +137,13 @@ public class AttributeUpdateMetadataMapper {
                 .setUpdatedAttribute(metadata.getUpdatedFieldKey())
                 .build();
     }
+
+    private static AttributeUpdateMetadata createMetadata(UserProfile profile, String key, String value, String updatedBy) {
+        AttributeUpdateMetadata attributeUpdateMetadata = new AttributeUpdateMetadata();
+        attributeUpdateMetadata.setUserProfile(profile);
+        attributeUpdateMetadata.setUpdatedFieldKey(key);
+        attributeUpdateMetadata.setUpdatedFieldValue(value);
+        attributeUpdateMetadata.setUpdatedBy(updatedBy);
+        return attributeUpdateMetadata;
+    }
 }
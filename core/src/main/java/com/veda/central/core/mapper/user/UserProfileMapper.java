@@ -26,12 +26,18 @@ import com.veda.central.core.model.user.UserRole;
 import com.veda.central.core.user.profile.api.UserStatus;
 import com.veda.central.core.user.profile.api.UserTypes;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * This class maps attributes between protobuf UserProfile to UserProfile model
@@ -112,6 +118,39 @@ public class UserProfileMapper {
     }
 
 
+    /**
+     * Computes a SHA-256 hash over every field of a user profile that is persisted, in a canonical order,
+     * so that two profiles with the same content always produce the same hash.
+     *
+     * @param userProfile The user profile.
+     * @return The hex encoded hash.
+     */
+    public static String computeContentHash(com.veda.central.core.user.profile.api.UserProfile userProfile) {
+        StringBuilder content = new StringBuilder()
+                .append(userProfile.getUsername()).append('\n')
+                .append(userProfile.getFirstName()).append('\n')
+                .append(userProfile.getLastName()).append('\n')
+                .append(userProfile.getEmail()).append('\n')
+                .append(userProfile.getStatus().name()).append('\n')
+                .append(userProfile.getType().name()).append('\n');
+
+        Map<String, Set<String>> attributes = new TreeMap<>();
+        userProfile.getAttributesList().forEach(atr ->
+                attributes.computeIfAbsent(atr.getKey(), key -> new TreeSet<>()).addAll(atr.getValuesList()));
+        attributes.forEach((key, values) -> content.append(key).append('=').append(values).append('\n'));
+
+        content.append(new TreeSet<>(userProfile.getRealmRolesList())).append('\n')
+                .append(new TreeSet<>(userProfile.getClientRolesList()));
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+
     /**
      * Creates a protobuf UserProfile object from a UserProfileEntity object.
      *
@@ -21,24 +21,25 @@ package com.veda.central.core.model.commons;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
-import org.springframework.data.annotation.CreatedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.util.Date;
 
 /**
- * Captured and stores Keycloak events
+ * Captured and stores Keycloak events. The event time is stamped when the event is recorded, not when
+ * the row is written, since rows are persisted asynchronously by {@code StatusUpdater}.
  */
 @Entity
-@Table(name = "event_metadata")
-@EntityListeners(AuditingEntityListener.class)
+@Table(name = "event_metadata", indexes = {
+        @Index(name = "idx_event_metadata_trace_time", columnList = "trace_id, time"),
+        @Index(name = "idx_event_metadata_time", columnList = "time")
+})
 public class StatusEntity {
 
     @Id
@@ -54,7 +55,6 @@ public class StatusEntity {
 
     @Column(nullable = false)
     @Temporal(TemporalType.TIMESTAMP)
-    @CreatedDate
     private Date time;
 
     @Column(nullable = false)
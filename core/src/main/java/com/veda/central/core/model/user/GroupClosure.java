@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package com.veda.central.core.model.user;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Transitive closure of the group hierarchy. Holds one row for every (ancestor, descendant) pair reachable through
+ * {@link GroupToGroupMembership}, including a depth 0 row of every group to itself.
+ */
+@Entity
+@Table(name = "group_closure", indexes = {
+        @Index(name = "idx_group_closure_descendant", columnList = "descendant_id, ancestor_id")
+})
+@IdClass(GroupClosureId.class)
+public class GroupClosure {
+
+    @Id
+    @Column(name = "ancestor_id")
+    private String ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private String descendantId;
+
+    @Column(nullable = false)
+    private Integer depth;
+
+    @Column(nullable = false)
+    private Long tenantId;
+
+
+    public String getAncestorId() {
+        return ancestorId;
+    }
+
+    public void setAncestorId(String ancestorId) {
+        this.ancestorId = ancestorId;
+    }
+
+    public String getDescendantId() {
+        return descendantId;
+    }
+
+    public void setDescendantId(String descendantId) {
+        this.descendantId = descendantId;
+    }
+
+    public Integer getDepth() {
+        return depth;
+    }
+
+    public void setDepth(Integer depth) {
+        this.depth = depth;
+    }
+
+    public Long getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(Long tenantId) {
+        this.tenantId = tenantId;
+    }
+}
@@ -24,12 +24,15 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "user_attribute")
+@Table(name = "user_attribute", indexes = {
+        @Index(name = "idx_user_attribute_key_value_profile", columnList = "key_value, value, user_profile_id")
+})
 public class UserAttribute {
 
     @Id
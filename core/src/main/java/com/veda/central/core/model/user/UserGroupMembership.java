@@ -25,6 +25,7 @@ import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -37,7 +38,9 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.util.Date;
 
 @Entity
-@Table(name = "user_group_membership")
+@Table(name = "user_group_membership", indexes = {
+        @Index(name = "idx_user_group_membership_group_type", columnList = "group_entity_id, user_group_membership_type_id")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class UserGroupMembership {
 
@@ -29,6 +29,7 @@ import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -76,11 +77,16 @@ public class UserProfile {
     @Column
     private String type;
 
+    @Column(length = 64)
+    private String contentHash;
 
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "userProfile", orphanRemoval = true, cascade = CascadeType.ALL)
+
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "userProfile", orphanRemoval = true, cascade = CascadeType.ALL)
+    @BatchSize(size = 100)
     private Set<UserRole> userRole;
 
-    @OneToMany(fetch = FetchType.EAGER, mappedBy = "userProfile", orphanRemoval = true, cascade = CascadeType.ALL)
+    @OneToMany(fetch = FetchType.LAZY, mappedBy = "userProfile", orphanRemoval = true, cascade = CascadeType.ALL)
+    @BatchSize(size = 100)
     private Set<UserAttribute> userAttribute;
 
     @OneToMany(mappedBy = "userProfile", cascade = CascadeType.ALL)
@@ -214,4 +220,12 @@ public class UserProfile {
     public void setType(String type) {
         this.type = type;
     }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
 }
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.core.repo.commons;
+
+import com.veda.central.core.model.commons.ServiceChainExecution;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface ServiceChainExecutionRepository extends JpaRepository<ServiceChainExecution, Long> {
+
+    List<ServiceChainExecution> findAllByStatusInAndUpdatedAtBefore(Collection<String> statuses, Date updatedAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ServiceChainExecution e SET e.updatedAt = :updatedAt WHERE e.id IN :ids")
+    int touch(@Param("ids") Collection<Long> ids, @Param("updatedAt") Date updatedAt);
+}
@@ -21,12 +21,26 @@ package com.veda.central.core.repo.commons;
 
 import com.veda.central.core.model.commons.StatusEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
 import java.util.List;
 
 public interface StatusUpdaterRepository extends JpaRepository<StatusEntity, Long> {
 
     @Transactional
     List<StatusEntity> findAllByTraceId(long traceId);
+
+    @Transactional
+    @Query(value = "SELECT * FROM event_metadata WHERE trace_id = :traceId ORDER BY time, id LIMIT :limit OFFSET :offset",
+            nativeQuery = true)
+    List<StatusEntity> findPageByTraceId(@Param("traceId") long traceId, @Param("limit") int limit, @Param("offset") int offset);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM event_metadata WHERE time < :cutoff LIMIT :limit", nativeQuery = true)
+    int deleteOlderThan(@Param("cutoff") Date cutoff, @Param("limit") int limit);
 }
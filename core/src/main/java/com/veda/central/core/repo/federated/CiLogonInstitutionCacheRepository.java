@@ -28,4 +28,6 @@ public interface CiLogonInstitutionCacheRepository extends JpaRepository<CILogon
 
     List<CILogonInstitution> findAllByTenantIdAndType(long tenantId, String type);
 
+    List<CILogonInstitution> findAllByTenantId(long tenantId);
+
 }
@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.core.repo.user;
+
+import com.veda.central.core.model.user.UserProfile;
+
+import java.util.Collection;
+
+public interface BulkUserProfileRepository {
+
+    /**
+     * Inserts new user profiles, together with their cascaded roles and attributes, in JDBC batches.
+     * The profiles must not exist yet; no merge lookups are issued before the inserts.
+     *
+     * @param profiles the new user profiles
+     */
+    void persistAll(Collection<UserProfile> profiles);
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.core.repo.user;
+
+import com.veda.central.core.model.user.UserProfile;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public class BulkUserProfileRepositoryImpl implements BulkUserProfileRepository {
+
+    /**
+     * Matches hibernate.jdbc.batch_size so that every flush sends whole batches.
+     */
+    private static final int BATCH_SIZE = 100;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    public void persistAll(Collection<UserProfile> profiles) {
+        int count = 0;
+        for (UserProfile profile : profiles) {
+            entityManager.persist(profile);
+            if (++count % BATCH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
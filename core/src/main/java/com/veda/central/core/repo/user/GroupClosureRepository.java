@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package com.veda.central.core.repo.user;
+
+import com.veda.central.core.model.user.GroupClosure;
+import com.veda.central.core.model.user.GroupClosureId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface GroupClosureRepository extends JpaRepository<GroupClosure, GroupClosureId> {
+
+    /**
+     * Deepest ancestor distance the closure queries follow; group hierarchies may not nest deeper than this.
+     */
+    int MAX_DEPTH = 64;
+
+    @Query("SELECT c.descendantId FROM GroupClosure c WHERE c.ancestorId = ?1")
+    List<String> findDescendantIds(String groupId);
+
+    @Query("SELECT COUNT(m) FROM UserGroupMembership m, GroupClosure c " +
+            "WHERE c.descendantId = m.group.id AND m.userProfile.id = ?1 AND c.ancestorId = ?2")
+    long countTransitiveMemberships(String userProfileId, String groupId);
+
+    long countByDepth(int depth);
+
+    @Query("SELECT COALESCE(MAX(c.depth), 0) FROM GroupClosure c WHERE c.descendantId = ?1")
+    int findMaxAncestorDepth(String groupId);
+
+    @Query("SELECT COALESCE(MAX(c.depth), 0) FROM GroupClosure c WHERE c.ancestorId = ?1")
+    int findMaxDescendantDepth(String groupId);
+
+    /**
+     * Counts direct closure rows that no longer have a matching group to group membership.
+     */
+    @Query("SELECT COUNT(c) FROM GroupClosure c WHERE c.depth = 1 AND NOT EXISTS (" +
+            "SELECT m FROM GroupToGroupMembership m WHERE m.parent.id = c.ancestorId AND m.child.id = c.descendantId)")
+    long countStaleEdges();
+
+    /**
+     * Counts group to group memberships that are not reflected in the closure.
+     */
+    @Query("SELECT COUNT(m) FROM GroupToGroupMembership m WHERE NOT EXISTS (" +
+            "SELECT c FROM GroupClosure c WHERE c.ancestorId = m.parent.id AND c.descendantId = m.child.id)")
+    long countMissingEdges();
+
+    @Modifying
+    @Query("DELETE FROM GroupClosure c WHERE c.descendantId IN ?1")
+    void deleteAllByDescendantIds(Collection<String> descendantIds);
+
+    @Modifying
+    @Query("DELETE FROM GroupClosure c WHERE c.ancestorId = ?1 OR c.descendantId = ?1")
+    void deleteAllByGroupId(String groupId);
+
+    @Modifying
+    @Query("DELETE FROM GroupClosure c WHERE c.tenantId = ?1")
+    void deleteAllByTenantId(long tenantId);
+
+    /**
+     * Recomputes every ancestor row of the given groups from the group to group memberships.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO group_closure (ancestor_id, descendant_id, depth, tenant_id) " +
+            "WITH RECURSIVE closure (ancestor_id, descendant_id, depth) AS (" +
+            "SELECT E.id, E.id, 0 FROM group_entity E WHERE E.id IN ?1 " +
+            "UNION ALL SELECT m.parent_id, c.descendant_id, c.depth + 1 FROM group_to_group_membership m " +
+            "INNER JOIN closure c ON m.child_id = c.ancestor_id WHERE c.depth < " + MAX_DEPTH + ") " +
+            "SELECT c.ancestor_id, c.descendant_id, MIN(c.depth), E.tenant_id FROM closure c " +
+            "INNER JOIN group_entity E ON E.id = c.descendant_id GROUP BY c.ancestor_id, c.descendant_id, E.tenant_id",
+            nativeQuery = true)
+    void insertClosureOfGroups(Collection<String> groupIds);
+
+    /**
+     * Recomputes every closure row of the groups in the given tenant.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO group_closure (ancestor_id, descendant_id, depth, tenant_id) " +
+            "WITH RECURSIVE closure (ancestor_id, descendant_id, depth) AS (" +
+            "SELECT E.id, E.id, 0 FROM group_entity E WHERE E.tenant_id = ?1 " +
+            "UNION ALL SELECT m.parent_id, c.descendant_id, c.depth + 1 FROM group_to_group_membership m " +
+            "INNER JOIN closure c ON m.child_id = c.ancestor_id WHERE c.depth < " + MAX_DEPTH + ") " +
+            "SELECT c.ancestor_id, c.descendant_id, MIN(c.depth), ?1 FROM closure c " +
+            "GROUP BY c.ancestor_id, c.descendant_id",
+            nativeQuery = true)
+    void insertClosureOfTenant(long tenantId);
+}
@@ -19,15 +19,21 @@
 
 package com.veda.central.core.repo.user;
 
+import com.veda.central.core.model.user.GroupOwner;
 import com.veda.central.core.model.user.UserGroupMembership;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface GroupMembershipRepository extends JpaRepository<UserGroupMembership, String> {
 
+    @EntityGraph(attributePaths = {"group", "userProfile", "userGroupMembershipType"})
     List<UserGroupMembership> findAllByGroupId(String id);
 
+    @EntityGraph(attributePaths = {"group", "userProfile", "userGroupMembershipType"})
     List<UserGroupMembership> findAllByUserProfileId(String id);
 
     List<UserGroupMembership> findAllByGroupIdAndUserProfileId(String groupEntityId, String userProfileId);
@@ -35,4 +41,8 @@ public interface GroupMembershipRepository extends JpaRepository<UserGroupMember
     List<UserGroupMembership> findAllByGroupIdAndUserProfileIdAndUserGroupMembershipTypeId(String groupId, String userProfileId, String groupMembershipId);
 
     List<UserGroupMembership> findAllByGroupIdAndUserGroupMembershipTypeId(String id, String groupMembershipId);
+
+    @Query("SELECT m.group.id AS groupId, m.userProfile.username AS username FROM UserGroupMembership m " +
+            "WHERE m.group.id IN ?1 AND m.userGroupMembershipType.id = ?2")
+    List<GroupOwner> findGroupOwners(Collection<String> groupIds, String groupMembershipId);
 }
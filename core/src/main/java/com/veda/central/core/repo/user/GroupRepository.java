@@ -21,6 +21,7 @@ package com.veda.central.core.repo.user;
 
 import com.veda.central.core.model.user.Group;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
@@ -29,4 +30,14 @@ public interface GroupRepository extends JpaRepository<Group, String>, SearchGro
     List<Group> findByParentId(String s);
 
     List<Group> findAllByTenantId(long tenantId);
+
+    @Query("SELECT DISTINCT g.tenantId FROM Group g")
+    List<Long> findAllTenantIds();
+
+    @Query("SELECT DISTINCT g FROM Group g, GroupClosure c, UserGroupMembership m " +
+            "WHERE g.id = c.ancestorId AND c.descendantId = m.group.id AND m.userProfile.id = ?1")
+    List<Group> findAllGroupsOfUserWithAncestors(String userProfileId);
+
+    @Query("SELECT g FROM Group g, GroupClosure c WHERE g.id = c.ancestorId AND c.descendantId = ?1")
+    List<Group> findGroupWithAncestors(String groupId);
 }
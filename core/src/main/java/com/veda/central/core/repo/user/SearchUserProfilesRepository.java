@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package com.veda.central.core.repo.user;
+
+import com.veda.central.core.model.user.UserProfile;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface SearchUserProfilesRepository {
+
+    /**
+     * Finds the user profiles of a tenant that carry every given attribute key/value pair.
+     *
+     * @param tenantId   the tenant id
+     * @param attributes attribute keys mapped to the values a profile must have for that key
+     * @param offset     the offset of the page
+     * @param limit      the page size, or 0 to return all matches
+     * @return the matching user profiles ordered by id
+     */
+    List<UserProfile> findByAttributes(long tenantId, Map<String, Set<String>> attributes, int offset, int limit);
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package com.veda.central.core.repo.user;
+
+import com.veda.central.core.model.user.UserProfile;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Repository
+public class SearchUserProfilesRepositoryImpl implements SearchUserProfilesRepository {
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    public List<UserProfile> findByAttributes(long tenantId, Map<String, Set<String>> attributes, int offset, int limit) {
+        if (attributes == null || attributes.values().stream().allMatch(Set::isEmpty)) {
+            return Collections.emptyList();
+        }
+
+        Map<String, Object> valueMap = new HashMap<>();
+        String query = createSQLQuery(tenantId, attributes, valueMap, offset, limit);
+
+        Query q = entityManager.createNativeQuery(query, UserProfile.class);
+        valueMap.forEach(q::setParameter);
+
+        return q.getResultList();
+    }
+
+    /**
+     * Builds a single query that matches every key/value pair at once. Each attribute row satisfying one of the
+     * pairs is grouped by its profile, and only the profiles that matched all the distinct pairs are selected.
+     * This is backed by the (key_value, value, user_profile_id) index on user_attribute.
+     */
+    private String createSQLQuery(long tenantId, Map<String, Set<String>> attributes, Map<String, Object> valueMap, int offset, int limit) {
+        StringBuilder predicates = new StringBuilder();
+        int pairs = 0;
+
+        for (Map.Entry<String, Set<String>> attribute : attributes.entrySet()) {
+            for (String value : attribute.getValue()) {
+                if (pairs > 0) {
+                    predicates.append(" OR ");
+                }
+                predicates.append("(A.key_value = :key").append(pairs).append(" AND A.value = :value").append(pairs).append(")");
+                valueMap.put("key" + pairs, attribute.getKey());
+                valueMap.put("value" + pairs, value);
+                pairs++;
+            }
+        }
+
+        String query = "SELECT P.* FROM user_profile P INNER JOIN (" +
+                "SELECT A.user_profile_id FROM user_attribute A WHERE " + predicates +
+                " GROUP BY A.user_profile_id HAVING COUNT(DISTINCT A.key_value, A.value) = :pairs" +
+                ") M ON M.user_profile_id = P.id WHERE P.tenant_id = :tenant_id ORDER BY P.id";
+        valueMap.put("pairs", pairs);
+        valueMap.put("tenant_id", tenantId);
+
+        if (limit > 0) {
+            query = query + " LIMIT " + ":limit" + " OFFSET " + ":offset";
+            valueMap.put("limit", limit);
+            valueMap.put("offset", offset);
+        }
+
+        return query;
+    }
+}
@@ -20,14 +20,7 @@
 package com.veda.central.core.repo.user;
 
 import com.veda.central.core.model.user.UserAttribute;
-import com.veda.central.core.model.user.UserProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-
-import java.util.List;
 
 public interface UserAttributeRepository extends JpaRepository<UserAttribute, Long> {
-
-    @Query("SELECT DISTINCT atr.userProfile from UserAttribute atr where atr.keyValue = ?1 and atr.value =?2")
-    List<UserProfile> findFilteredUserProfiles(String key, String value);
 }
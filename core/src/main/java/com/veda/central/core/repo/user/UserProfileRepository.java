@@ -25,7 +25,8 @@ import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
-public interface UserProfileRepository extends JpaRepository<UserProfile, String> {
+public interface UserProfileRepository extends JpaRepository<UserProfile, String>, SearchUserProfilesRepository,
+        BulkUserProfileRepository {
 
     List<UserProfile> findByTenantId(long tenantId);
 
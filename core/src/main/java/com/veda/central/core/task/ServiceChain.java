@@ -20,7 +20,9 @@
 package com.veda.central.core.task;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A class represents the set of services that  needs to be invoked to complete a full operation
@@ -29,35 +31,64 @@ public final class ServiceChain {
 
     private final List<ServiceTask> serviceTasks;
 
+    private final ServiceCallback serviceCallback;
+
+    private final List<ServiceTask> steps = new ArrayList<>();
+
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    private volatile ServiceChainListener listener;
+
 
     private ServiceChain(ServiceChainBuilder serviceChainBuilder) {
-        this.serviceTasks = serviceChainBuilder.serviceTasks;
+        this.serviceTasks = Collections.unmodifiableList(serviceChainBuilder.serviceTasks);
+        this.serviceCallback = serviceChainBuilder.serviceCallback;
+
+        ServiceCallback chainCallback = new ChainCallback();
+        for (int i = 0; i < serviceTasks.size(); i++) {
+            steps.add(new StepTask(i, serviceTasks.get(i)));
+        }
+        for (int i = 0; i < serviceTasks.size(); i++) {
+            ServiceTask task = serviceTasks.get(i);
+            task.setServiceCallback(chainCallback);
+            task.setNextTask(i + 1 < steps.size() ? steps.get(i + 1) : null);
+        }
     }
 
     public void serve(Object data) {
-        if (!serviceTasks.isEmpty()) {
-            serviceTasks.get(0).invokeService(data);
+        serve(data, null);
+    }
+
+    /**
+     * Serves the chain on the calling thread, reporting step progress and the outcome to the given listener
+     */
+    public void serve(Object data, ServiceChainListener listener) {
+        this.listener = listener;
+        if (!steps.isEmpty()) {
+            steps.get(0).invokeService(data);
         }
     }
 
+    public List<ServiceTask> getServiceTasks() {
+        return serviceTasks;
+    }
+
+    public int getStepCount() {
+        return serviceTasks.size();
+    }
+
     public static class ServiceChainBuilder {
 
         private ServiceCallback serviceCallback;
         private List<ServiceTask> serviceTasks = new ArrayList();
-        private ServiceTask latestTask;
 
         private ServiceChainBuilder(ServiceTask firstTask, ServiceCallback serviceCallback) {
-            this.latestTask = firstTask;
             this.serviceCallback = serviceCallback;
-            this.latestTask.setServiceCallback(serviceCallback);
-            this.serviceTasks.add(this.latestTask);
+            this.serviceTasks.add(firstTask);
         }
 
         public ServiceChainBuilder nextTask(ServiceTask serviceTask) {
-            this.latestTask.setNextTask(serviceTask);
-            this.latestTask = serviceTask;
-            this.latestTask.setServiceCallback(serviceCallback);
-            this.serviceTasks.add(this.latestTask);
+            this.serviceTasks.add(serviceTask);
             return this;
         }
 
@@ -70,4 +101,75 @@ public final class ServiceChain {
     public static ServiceChainBuilder newBuilder(ServiceTask firstTask, ServiceCallback serviceCallback) {
         return new ServiceChainBuilder(firstTask, serviceCallback);
     }
+
+    /**
+     * Delegates to the caller's callback and reports the outcome of the chain to the listener exactly once
+     */
+    private class ChainCallback implements ServiceCallback {
+
+        @Override
+        public void onCompleted(Object obj) {
+            serviceCallback.onCompleted(obj);
+            ServiceChainListener current = listener;
+            if (current != null && finished.compareAndSet(false, true)) {
+                current.onCompleted(obj);
+            }
+        }
+
+        @Override
+        public void onError(ServiceException ex) {
+            try {
+                serviceCallback.onError(ex);
+            } finally {
+                ServiceChainListener current = listener;
+                if (current != null && finished.compareAndSet(false, true)) {
+                    current.onError(ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Wraps a task of the chain so the listener is notified when the task starts
+     */
+    private class StepTask implements ServiceTask {
+
+        private final int index;
+
+        private final ServiceTask delegate;
+
+        private StepTask(int index, ServiceTask delegate) {
+            this.index = index;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void invokeService(Object data) {
+            ServiceChainListener current = listener;
+            if (current != null) {
+                current.onStepStarted(index, delegate.getName());
+            }
+            delegate.invokeService(data);
+        }
+
+        @Override
+        public void invokeNextTask(Object data) {
+            delegate.invokeNextTask(data);
+        }
+
+        @Override
+        public void setNextTask(ServiceTask serviceTask) {
+            delegate.setNextTask(serviceTask);
+        }
+
+        @Override
+        public void setServiceCallback(ServiceCallback serviceCallback) {
+            delegate.setServiceCallback(serviceCallback);
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+    }
 }
@@ -0,0 +1,485 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.core.task;
+
+import com.veda.central.core.model.commons.ExecutionStatus;
+import com.veda.central.core.model.commons.ServiceChainExecution;
+import com.veda.central.core.model.commons.ServiceChainStep;
+import com.veda.central.core.repo.commons.ServiceChainExecutionRepository;
+import com.veda.central.core.repo.commons.ServiceChainStepRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Serves {@link ServiceChain}s off the caller's thread. Every execution is persisted with its current step and a
+ * journal of its steps, so that callers can poll the progress by trace id instead of waiting for the chain to finish,
+ * and so that executions interrupted by a restart are resumed by the recovery scanner.
+ */
+@Component
+public class ServiceChainExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceChainExecutor.class);
+
+    private static final int MAX_MESSAGE_LENGTH = 1024;
+
+    private static final List<String> ACTIVE_STATUSES = List.of(ExecutionStatus.PENDING.name(), ExecutionStatus.RUNNING.name());
+
+    private final ServiceChainExecutionRepository repository;
+
+    private final ServiceChainStepRepository stepRepository;
+
+    private final ExecutorService executor;
+
+    private final ExecutorService stepExecutor;
+
+    private final Semaphore executionPermits;
+
+    private final long shutdownTimeoutSeconds;
+
+    private final long recoveryIntervalSeconds;
+
+    private final long staleSeconds;
+
+    private final int maxRecoveries;
+
+    private final Map<String, ServiceChainRecovery> recoveries = new ConcurrentHashMap<>();
+
+    private final Set<Long> localExecutions = ConcurrentHashMap.newKeySet();
+
+    private final ThreadLocal<StepJournal> currentJournal = new ThreadLocal<>();
+
+    private ScheduledExecutorService scheduler;
+
+
+    public ServiceChainExecutor(ServiceChainExecutionRepository repository, ServiceChainStepRepository stepRepository,
+                                @Value("${service.chain.executor.virtual.threads:true}") boolean virtualThreads,
+                                @Value("${service.chain.executor.pool.size:16}") int poolSize,
+                                @Value("${service.chain.step.executor.pool.size:32}") int stepPoolSize,
+                                @Value("${service.chain.executor.max.concurrent.executions:8}") int maxConcurrentExecutions,
+                                @Value("${service.chain.executor.shutdown.timeout.seconds:30}") long shutdownTimeoutSeconds,
+                                @Value("${service.chain.recovery.interval.seconds:300}") long recoveryIntervalSeconds,
+                                @Value("${service.chain.recovery.stale.seconds:600}") long staleSeconds,
+                                @Value("${service.chain.recovery.max.attempts:3}") int maxRecoveries) {
+        this.repository = repository;
+        this.stepRepository = stepRepository;
+        this.executor = createExecutor("service-chain-", virtualThreads, Math.max(1, poolSize));
+        this.stepExecutor = createExecutor("service-step-", virtualThreads, Math.max(1, stepPoolSize));
+        this.executionPermits = new Semaphore(Math.max(1, maxConcurrentExecutions), true);
+        this.shutdownTimeoutSeconds = shutdownTimeoutSeconds;
+        this.recoveryIntervalSeconds = Math.max(1, recoveryIntervalSeconds);
+        this.staleSeconds = Math.max(3, staleSeconds);
+        this.maxRecoveries = maxRecoveries;
+    }
+
+    /**
+     * Persists a new execution of the chain and serves it asynchronously. At most
+     * {@code service.chain.executor.max.concurrent.executions} chains run at a time, the rest wait as PENDING.
+     *
+     * @param name        name of the operation the chain performs, also used to find its {@link ServiceChainRecovery}
+     * @param subjectId   id of the entity the chain operates on, e.g. the tenant id
+     * @param performedBy the user or system that requested the operation
+     * @param chain       the chain to serve
+     * @param data        the input of the first task
+     * @return a handle carrying the trace id of the execution
+     */
+    public ServiceExecutionHandle submit(String name, long subjectId, String performedBy, ServiceChain chain, Object data) {
+        ServiceChainExecution execution = new ServiceChainExecution();
+        execution.setName(name);
+        execution.setSubjectId(subjectId);
+        execution.setPerformedBy(performedBy);
+        execution.setStatus(ExecutionStatus.PENDING.name());
+        execution.setTotalSteps(chain.getStepCount());
+        return start(repository.save(execution), chain, data);
+    }
+
+    /**
+     * Serves the chain again for an interrupted execution. Steps recorded as completed in the execution's journal
+     * are skipped by steps that consult {@link #currentJournal()}.
+     */
+    public ServiceExecutionHandle resume(ServiceChainExecution execution, ServiceChain chain, Object data) {
+        return start(execution, chain, data);
+    }
+
+    /**
+     * Registers how interrupted executions with the given name are resumed
+     */
+    public void registerRecovery(String name, ServiceChainRecovery recovery) {
+        recoveries.put(name, recovery);
+    }
+
+    public Optional<ServiceChainExecution> getExecution(long traceId) {
+        return repository.findById(traceId);
+    }
+
+    /**
+     * Returns the journal of the execution's steps in the order they were first started
+     */
+    public List<ServiceChainStep> getSteps(long traceId) {
+        return stepRepository.findAllByExecutionIdOrderByIdAsc(traceId);
+    }
+
+    /**
+     * The journal of the execution being served on the calling thread, or {@link StepJournal#NONE} when the caller
+     * is not part of a tracked execution
+     */
+    public StepJournal currentJournal() {
+        StepJournal journal = currentJournal.get();
+        return journal != null ? journal : StepJournal.NONE;
+    }
+
+    /**
+     * Executor for the steps of a {@link ServiceGraph} run by a chain. It is separate from the chain executor so
+     * that chains waiting on their steps can never starve those steps of threads.
+     */
+    public Executor getStepExecutor() {
+        return stepExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRecovery() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "service-chain-recovery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long heartbeatSeconds = Math.max(1, staleSeconds / 3);
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::recoverInterruptedExecutions, 0, recoveryIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Resumes executions left PENDING or RUNNING by an instance that stopped, i.e. executions that have not been
+     * updated for {@code service.chain.recovery.stale.seconds}
+     */
+    public void recoverInterruptedExecutions() {
+        try {
+            Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(staleSeconds));
+            for (ServiceChainExecution execution : repository.findAllByStatusInAndUpdatedAtBefore(ACTIVE_STATUSES, cutoff)) {
+                ServiceChainRecovery recovery = recoveries.get(execution.getName());
+                if (recovery == null || localExecutions.contains(execution.getId())) {
+                    continue;
+                }
+
+                try {
+                    if (execution.getRecoveries() >= maxRecoveries) {
+                        execution.setStatus(ExecutionStatus.FAILED.name());
+                        execution.setMessage("Abandoned after " + execution.getRecoveries() + " recovery attempts");
+                        repository.save(execution);
+                        LOGGER.error("Service chain execution " + execution.getId() + " of " + execution.getName()
+                                + " abandoned after " + execution.getRecoveries() + " recovery attempts");
+                        continue;
+                    }
+
+                    // Claiming bumps the version, so only one instance resumes the execution
+                    execution.setRecoveries(execution.getRecoveries() + 1);
+                    execution.setStatus(ExecutionStatus.PENDING.name());
+                    execution = repository.save(execution);
+
+                } catch (ObjectOptimisticLockingFailureException ex) {
+                    LOGGER.debug("Service chain execution {} was claimed by another instance", execution.getId());
+                    continue;
+                }
+
+                LOGGER.info("Resuming interrupted service chain execution {} of {} for {}", execution.getId(),
+                        execution.getName(), execution.getSubjectId());
+                try {
+                    recovery.resume(execution);
+                } catch (Exception ex) {
+                    LOGGER.error("Error occurred while resuming service chain execution " + execution.getId(), ex);
+                }
+            }
+
+        } catch (Exception ex) {
+            LOGGER.error("Error occurred while scanning for interrupted service chain executions, reason: " + ex.getMessage(), ex);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+                LOGGER.warn("Service chain executions still running after {} seconds, interrupting", shutdownTimeoutSeconds);
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        stepExecutor.shutdownNow();
+    }
+
+    private ServiceExecutionHandle start(ServiceChainExecution execution, ServiceChain chain, Object data) {
+        CompletableFuture<Object> completion = new CompletableFuture<>();
+        ExecutionTracker tracker = new ExecutionTracker(execution, completion);
+        localExecutions.add(execution.getId());
+        completion.whenComplete((result, ex) -> localExecutions.remove(tracker.execution.getId()));
+
+        try {
+            executor.execute(() -> run(chain, data, tracker));
+        } catch (RejectedExecutionException ex) {
+            LOGGER.error("Service chain " + execution.getName() + " for " + execution.getSubjectId() + " was rejected by the executor", ex);
+            tracker.onError(new ServiceException("Service chain executor is not accepting new work", ex, null));
+        }
+
+        return new ServiceExecutionHandle(execution.getId(), completion);
+    }
+
+    private void run(ServiceChain chain, Object data, ExecutionTracker tracker) {
+        try {
+            executionPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Left PENDING so the execution is resumed after the restart
+            localExecutions.remove(tracker.execution.getId());
+            return;
+        }
+
+        currentJournal.set(tracker.journal);
+        try {
+            tracker.onStarted();
+            chain.serve(data, tracker);
+        } catch (Exception ex) {
+            if (tracker.finished.get()) {
+                // Already reported through the chain callback
+                LOGGER.debug("Service chain callback failed after the execution finished", ex);
+                return;
+            }
+            LOGGER.error("Service chain " + tracker.execution.getName() + " failed for " + tracker.execution.getSubjectId(), ex);
+            tracker.onError(new ServiceException(ex.getMessage(), ex, null));
+        } finally {
+            currentJournal.remove();
+            executionPermits.release();
+        }
+    }
+
+    /**
+     * Keeps the executions owned by this instance, including those waiting for a permit, from looking stale
+     */
+    private void heartbeat() {
+        try {
+            if (!localExecutions.isEmpty()) {
+                repository.touch(Set.copyOf(localExecutions), new Date());
+            }
+        } catch (Exception ex) {
+            LOGGER.error("Error occurred while updating the heartbeat of service chain executions, reason: " + ex.getMessage(), ex);
+        }
+    }
+
+    private static ExecutorService createExecutor(String threadPrefix, boolean virtualThreads, int poolSize) {
+        if (virtualThreads) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException ex) {
+                LOGGER.info("Virtual threads are not supported by this runtime, using a pool of {} threads", poolSize);
+            }
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, threadPrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Persists the progress of a single execution as the chain reports it
+     */
+    private class ExecutionTracker implements ServiceChainListener {
+
+        private final CompletableFuture<Object> completion;
+
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private final PersistentStepJournal journal;
+
+        private ServiceChainExecution execution;
+
+        private ExecutionTracker(ServiceChainExecution execution, CompletableFuture<Object> completion) {
+            this.execution = execution;
+            this.completion = completion;
+            this.journal = new PersistentStepJournal(execution.getId());
+        }
+
+        private synchronized void onStarted() {
+            execution.setStatus(ExecutionStatus.RUNNING.name());
+            persist();
+        }
+
+        @Override
+        public void onStepStarted(int stepIndex, String stepName) {
+            synchronized (this) {
+                if (execution.getCurrentStep() != null) {
+                    journal.stepCompleted(execution.getCurrentStep());
+                }
+                execution.setCurrentStep(stepName);
+                execution.setCompletedSteps(stepIndex);
+                persist();
+            }
+            journal.stepStarted(stepName);
+        }
+
+        @Override
+        public void onCompleted(Object obj) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            synchronized (this) {
+                if (execution.getCurrentStep() != null) {
+                    journal.stepCompleted(execution.getCurrentStep());
+                }
+                execution.setStatus(ExecutionStatus.COMPLETED.name());
+                execution.setCompletedSteps(execution.getTotalSteps());
+                execution.setCurrentStep(null);
+                persist();
+            }
+            completion.complete(obj);
+        }
+
+        @Override
+        public void onError(ServiceException ex) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            String message = StringUtils.abbreviate(ex.getMessage(), MAX_MESSAGE_LENGTH);
+            synchronized (this) {
+                if (execution.getCurrentStep() != null) {
+                    journal.stepFailed(execution.getCurrentStep(), message);
+                }
+                execution.setStatus(ExecutionStatus.FAILED.name());
+                execution.setMessage(message);
+                persist();
+            }
+            completion.completeExceptionally(ex);
+        }
+
+        private void persist() {
+            try {
+                execution = repository.save(execution);
+            } catch (Exception ex) {
+                LOGGER.error("Failed to persist the progress of service chain execution " + execution.getId(), ex);
+            }
+        }
+    }
+
+    /**
+     * Step journal of a single execution, backed by the service_chain_step table
+     */
+    private class PersistentStepJournal implements StepJournal {
+
+        private final long executionId;
+
+        private final Map<String, ServiceChainStep> steps = new ConcurrentHashMap<>();
+
+        private PersistentStepJournal(long executionId) {
+            this.executionId = executionId;
+            for (ServiceChainStep step : stepRepository.findAllByExecutionIdOrderByIdAsc(executionId)) {
+                steps.put(step.getName(), step);
+            }
+        }
+
+        @Override
+        public boolean isRecorded(String stepName) {
+            return steps.containsKey(stepName);
+        }
+
+        @Override
+        public boolean isCompleted(String stepName) {
+            ServiceChainStep step = steps.get(stepName);
+            return step != null && ExecutionStatus.COMPLETED.name().equals(step.getStatus());
+        }
+
+        @Override
+        public void stepStarted(String stepName) {
+            update(stepName, step -> {
+                step.setStatus(ExecutionStatus.RUNNING.name());
+                step.setAttempts(step.getAttempts() + 1);
+                step.setStartedAt(new Date());
+                step.setFinishedAt(null);
+                step.setMessage(null);
+            });
+        }
+
+        @Override
+        public void stepCompleted(String stepName) {
+            update(stepName, step -> {
+                step.setStatus(ExecutionStatus.COMPLETED.name());
+                step.setFinishedAt(new Date());
+            });
+        }
+
+        @Override
+        public void stepFailed(String stepName, String message) {
+            update(stepName, step -> {
+                step.setStatus(ExecutionStatus.FAILED.name());
+                step.setFinishedAt(new Date());
+                step.setMessage(StringUtils.abbreviate(message, MAX_MESSAGE_LENGTH));
+            });
+        }
+
+        private void update(String stepName, Consumer<ServiceChainStep> change) {
+            steps.compute(stepName, (name, step) -> {
+                if (step == null) {
+                    step = new ServiceChainStep();
+                    step.setExecutionId(executionId);
+                    step.setName(name);
+                }
+                change.accept(step);
+                try {
+                    return stepRepository.save(step);
+                } catch (Exception ex) {
+                    LOGGER.error("Failed to journal step " + name + " of service chain execution " + executionId, ex);
+                    return step;
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.core.task;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A handle to an asynchronously served {@link ServiceChain}. The trace id can be used to poll the persisted
+ * progress of the execution.
+ */
+public final class ServiceExecutionHandle {
+
+    private final long traceId;
+
+    private final CompletableFuture<Object> completion;
+
+
+    ServiceExecutionHandle(long traceId, CompletableFuture<Object> completion) {
+        this.traceId = traceId;
+        this.completion = completion;
+    }
+
+    public long getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * Completes with the chain result, or exceptionally with the {@link ServiceException} reported by the chain
+     */
+    public CompletableFuture<Object> getCompletion() {
+        return completion;
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.core.task;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * A set of named steps with declared dependencies, the dependency-ordered counterpart of {@link ServiceChain}.
+ * A step starts as soon as all the steps it depends on have completed, so independent steps run concurrently.
+ * When a step fails, the steps depending on it are not started and the failure is reported once every started
+ * step has finished.
+ * <p>
+ * Steps report their progress to a {@link StepJournal}. Steps added with {@link ServiceGraphBuilder#step} must be
+ * safe to repeat and always run; steps added with {@link ServiceGraphBuilder#stepOnce} are skipped when the journal
+ * shows that an earlier attempt completed them, in which case their result is {@code null}.
+ */
+public final class ServiceGraph {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceGraph.class);
+
+    private static final Object NULL_RESULT = new Object();
+
+    /**
+     * A unit of work in the graph. The results of the steps it depends on are available through {@link Results}.
+     */
+    @FunctionalInterface
+    public interface Step {
+
+        Object execute(Results results) throws Exception;
+    }
+
+    /**
+     * The values returned by completed steps, keyed by step name
+     */
+    public static final class Results {
+
+        private final Map<String, Object> values = new ConcurrentHashMap<>();
+
+        private Results() {
+        }
+
+        public <T> T get(String stepName, Class<T> type) {
+            Object value = values.get(stepName);
+            return value == null || value == NULL_RESULT ? null : type.cast(value);
+        }
+
+        private void put(String stepName, Object value) {
+            values.put(stepName, value == null ? NULL_RESULT : value);
+        }
+    }
+
+    private final String name;
+
+    private final Map<String, Node> nodes;
+
+    private final List<String> executionOrder;
+
+
+    private ServiceGraph(ServiceGraphBuilder builder) {
+        this.name = builder.name;
+        this.nodes = builder.nodes;
+        this.executionOrder = sort(builder.nodes);
+    }
+
+    /**
+     * Executes the graph on the given executor and waits for it to finish.
+     *
+     * @return the results of all steps
+     * @throws ServiceException with the name of the failed step as its code, if any step fails
+     */
+    public Results execute(Executor executor) throws ServiceException {
+        return execute(executor, StepJournal.NONE);
+    }
+
+    /**
+     * Executes the graph on the given executor, recording step progress in the journal, and waits for it to finish.
+     *
+     * @return the results of all steps
+     * @throws ServiceException with the name of the failed step as its code, if any step fails
+     */
+    public Results execute(Executor executor, StepJournal journal) throws ServiceException {
+        long start = System.currentTimeMillis();
+        Results results = new Results();
+        Map<String, CompletableFuture<Object>> futures = new HashMap<>();
+
+        for (String stepName : executionOrder) {
+            Node node = nodes.get(stepName);
+            CompletableFuture<?>[] dependencies = node.dependsOn.stream()
+                    .map(futures::get)
+                    .toArray(CompletableFuture[]::new);
+
+            CompletableFuture<Object> future = CompletableFuture.allOf(dependencies)
+                    .thenApplyAsync(ignored -> run(node, results, journal), executor);
+            futures.put(stepName, future);
+        }
+
+        try {
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException ex) {
+            // Dependents fail with the exception of the step they depend on, so the first failure in
+            // execution order is the one that caused the graph to fail
+            for (String stepName : executionOrder) {
+                CompletableFuture<Object> future = futures.get(stepName);
+                if (future.isCompletedExceptionally()) {
+                    Throwable cause = unwrap(future);
+                    if (cause instanceof ServiceException) {
+                        throw (ServiceException) cause;
+                    }
+                    throw new ServiceException("Step " + stepName + " of " + name + " failed", cause, stepName);
+                }
+            }
+            throw new ServiceException(name + " failed", ex.getCause(), null);
+        }
+
+        LOGGER.debug("{} completed {} steps in {} ms", name, nodes.size(), System.currentTimeMillis() - start);
+        return results;
+    }
+
+    public List<String> getStepNames() {
+        return executionOrder;
+    }
+
+    private Object run(Node node, Results results, StepJournal journal) {
+        if (node.once && journal.isCompleted(node.name)) {
+            LOGGER.debug("Step {} of {} already completed, skipping", node.name, name);
+            results.put(node.name, null);
+            return null;
+        }
+
+        long start = System.currentTimeMillis();
+        journal.stepStarted(node.name);
+        try {
+            Object value = node.step.execute(results);
+            results.put(node.name, value);
+            journal.stepCompleted(node.name);
+            LOGGER.debug("Step {} of {} completed in {} ms", node.name, name, System.currentTimeMillis() - start);
+            return value;
+        } catch (Exception ex) {
+            String msg = "Step " + node.name + " of " + name + " failed, reason: " + ex.getMessage();
+            LOGGER.error(msg, ex);
+            journal.stepFailed(node.name, msg);
+            throw new CompletionException(new ServiceException(msg, ex, node.name));
+        }
+    }
+
+    private static Throwable unwrap(CompletableFuture<Object> future) {
+        try {
+            future.join();
+            return null;
+        } catch (CompletionException ex) {
+            return ex.getCause();
+        } catch (RuntimeException ex) {
+            return ex;
+        }
+    }
+
+    /**
+     * Orders the steps so that every step comes after its dependencies, rejecting unknown dependencies and cycles
+     */
+    private static List<String> sort(Map<String, Node> nodes) {
+        Map<String, Integer> pending = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        Deque<String> ready = new ArrayDeque<>();
+
+        for (Node node : nodes.values()) {
+            for (String dependency : node.dependsOn) {
+                if (!nodes.containsKey(dependency)) {
+                    throw new IllegalArgumentException("Step " + node.name + " depends on unknown step " + dependency);
+                }
+                dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(node.name);
+            }
+            pending.put(node.name, node.dependsOn.size());
+            if (node.dependsOn.isEmpty()) {
+                ready.add(node.name);
+            }
+        }
+
+        List<String> order = new ArrayList<>(nodes.size());
+        while (!ready.isEmpty()) {
+            String stepName = ready.poll();
+            order.add(stepName);
+            for (String dependent : dependents.getOrDefault(stepName, Collections.emptyList())) {
+                if (pending.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (order.size() != nodes.size()) {
+            throw new IllegalArgumentException("Steps contain a dependency cycle");
+        }
+        return Collections.unmodifiableList(order);
+    }
+
+    private static final class Node {
+
+        private final String name;
+
+        private final Step step;
+
+        private final List<String> dependsOn;
+
+        private final boolean once;
+
+        private Node(String name, Step step, List<String> dependsOn, boolean once) {
+            this.name = name;
+            this.step = step;
+            this.dependsOn = dependsOn;
+            this.once = once;
+        }
+    }
+
+    public static class ServiceGraphBuilder {
+
+        private final String name;
+        private final Map<String, Node> nodes = new LinkedHashMap<>();
+
+        private ServiceGraphBuilder(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Adds a step that is safe to repeat, e.g. a read
+         */
+        public ServiceGraphBuilder step(String stepName, Step step, String... dependsOn) {
+            return addStep(stepName, step, dependsOn, false);
+        }
+
+        /**
+         * Adds a step that must not be repeated once it has completed
+         */
+        public ServiceGraphBuilder stepOnce(String stepName, Step step, String... dependsOn) {
+            return addStep(stepName, step, dependsOn, true);
+        }
+
+        private ServiceGraphBuilder addStep(String stepName, Step step, String[] dependsOn, boolean once) {
+            if (nodes.containsKey(stepName)) {
+                throw new IllegalArgumentException("Step " + stepName + " is already defined");
+            }
+            nodes.put(stepName, new Node(stepName, step, List.copyOf(Arrays.asList(dependsOn)), once));
+            return this;
+        }
+
+        public ServiceGraph build() {
+            return new ServiceGraph(this);
+        }
+    }
+
+    public static ServiceGraphBuilder newBuilder(String name) {
+        return new ServiceGraphBuilder(name);
+    }
+}
@@ -19,6 +19,8 @@
 
 package com.veda.central.core.task;
 
+import org.springframework.util.ClassUtils;
+
 /**
  * The ServiceTask interface represents a task that can be invoked and chained
  * with other tasks. It provides methods for invoking the service, invoking the
@@ -38,4 +40,11 @@ public interface ServiceTask<T, U> {
 
     void setServiceCallback(ServiceCallback serviceCallback);
 
+    /**
+     * Name used when reporting the progress of this task as a step of a chain
+     */
+    default String getName() {
+        return ClassUtils.getUserClass(getClass()).getSimpleName();
+    }
+
 }
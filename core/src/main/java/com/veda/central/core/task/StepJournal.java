@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.core.task;
+
+/**
+ * Records the progress of the steps of an execution so that an interrupted execution can be resumed
+ * without repeating steps that already completed.
+ */
+public interface StepJournal {
+
+    /**
+     * A journal that records nothing, used when a chain or graph runs outside a tracked execution
+     */
+    StepJournal NONE = new StepJournal() {
+        @Override
+        public boolean isRecorded(String stepName) {
+            return false;
+        }
+
+        @Override
+        public boolean isCompleted(String stepName) {
+            return false;
+        }
+
+        @Override
+        public void stepStarted(String stepName) {
+        }
+
+        @Override
+        public void stepCompleted(String stepName) {
+        }
+
+        @Override
+        public void stepFailed(String stepName, String message) {
+        }
+    };
+
+    /**
+     * Whether the step was started by this or an earlier attempt of the execution
+     */
+    boolean isRecorded(String stepName);
+
+    boolean isCompleted(String stepName);
+
+    void stepStarted(String stepName);
+
+    void stepCompleted(String stepName);
+
+    void stepFailed(String stepName, String message);
+
+}
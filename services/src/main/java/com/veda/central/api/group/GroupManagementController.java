@@ -958,6 +958,50 @@ public class GroupManagementController {
         return ResponseEntity.ok(status);
     }
 
+    @GetMapping("/groups/{groupId}/members/{userId}/membership")
+    @Operation(
+            summary = "Check Transitive Group Membership",
+            description = "Checks if a user is a member of a group directly or through any of its descendant groups",
+            parameters = {
+                    @Parameter(
+                            name = "userId",
+                            in = ParameterIn.PATH,
+                            description = "Username of the user",
+                            required = true,
+                            schema = @Schema(type = "string")
+                    ),
+                    @Parameter(
+                            name = "groupId",
+                            in = ParameterIn.PATH,
+                            description = "Group ID",
+                            required = true,
+                            schema = @Schema(type = "string")
+                    ),
+                    @Parameter(
+                            name = "client_id",
+                            in = ParameterIn.HEADER,
+                            description = "The client ID initiating the membership check request",
+                            required = true,
+                            schema = @Schema(type = "string")
+                    )
+            },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Membership check result", content = @Content(schema = @Schema(implementation = Status.class))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized Request"),
+                    @ApiResponse(responseCode = "500", description = "Internal Server Error")
+            }
+    )
+    public ResponseEntity<Status> isTransitiveGroupMember(@PathVariable("groupId") String groupId, @PathVariable("userId") String username, @RequestHeader HttpHeaders headers) {
+        AuthClaim authClaim = authorize(headers);
+        GroupMembership request = GroupMembership.newBuilder()
+                .setTenantId(authClaim.getTenantId())
+                .setUsername(username)
+                .setGroupId(groupId)
+                .build();
+        Status status = groupManagementService.isTransitiveGroupMember(request);
+        return ResponseEntity.ok(status);
+    }
+
     @PostMapping("/group-membership-types")
     @Operation(
             summary = "Add Group Membership Type",
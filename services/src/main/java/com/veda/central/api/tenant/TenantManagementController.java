@@ -31,9 +31,13 @@ import com.veda.central.core.iam.api.DeleteRoleRequest;
 import com.veda.central.core.iam.api.EventPersistenceRequest;
 import com.veda.central.core.iam.api.GetRolesRequest;
 import com.veda.central.core.iam.api.OperationStatus;
+import com.veda.central.core.tenant.management.api.ActivationStatus;
+import com.veda.central.core.tenant.management.api.ApproveTenantsRequest;
+import com.veda.central.core.tenant.management.api.ApproveTenantsResponse;
 import com.veda.central.core.tenant.management.api.CreateTenantResponse;
 import com.veda.central.core.tenant.management.api.Credentials;
 import com.veda.central.core.tenant.management.api.DeleteTenantRequest;
+import com.veda.central.core.tenant.management.api.GetActivationStatusRequest;
 import com.veda.central.core.tenant.management.api.GetTenantRequest;
 import com.veda.central.core.tenant.management.api.TenantValidationRequest;
 import com.veda.central.core.tenant.management.api.UpdateTenantRequest;
@@ -49,12 +53,14 @@ import com.veda.central.core.tenant.profile.api.UpdateStatusRequest;
 import com.veda.central.core.tenant.profile.api.UpdateStatusResponse;
 import com.veda.central.service.auth.AuthClaim;
 import com.veda.central.service.auth.TokenAuthorizer;
+import com.veda.central.service.federated.cilogon.InstitutionsPayload;
 import com.veda.central.service.management.TenantManagementService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -301,6 +307,18 @@ public class TenantManagementController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/status/approvals")
+    public ResponseEntity<ApproveTenantsResponse> approveTenants(@Valid @RequestBody ApproveTenantsRequest request) {
+        ApproveTenantsResponse response = tenantManagementService.approveTenants(request);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/status/activation/{traceId}")
+    public ResponseEntity<ActivationStatus> getActivationStatus(@PathVariable("traceId") long traceId) {
+        ActivationStatus response = tenantManagementService.getActivationStatus(GetActivationStatusRequest.newBuilder().setTraceId(traceId).build());
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/tenants")
     public ResponseEntity<GetAllTenantsResponse> getAllTenants(@Valid @RequestBody GetTenantsRequest request) {
         GetAllTenantsResponse response = tenantManagementService.getAllTenants(request);
@@ -354,9 +372,25 @@ public class TenantManagementController {
     }
 
     @GetMapping("/institutions/CILogon")
-    public ResponseEntity<GetInstitutionsResponse> getInstitutions(@Valid @RequestBody CacheManipulationRequest request, @RequestHeader HttpHeaders headers) {
-        GetInstitutionsResponse response = tenantManagementService.getInstitutions(generateCacheManipulationRequest(request, headers));
-        return ResponseEntity.ok(response);
+    public ResponseEntity<byte[]> getInstitutions(@Valid @RequestBody(required = false) CacheManipulationRequest request, @RequestHeader HttpHeaders headers) {
+        request = request != null ? request : CacheManipulationRequest.getDefaultInstance();
+        InstitutionsPayload payload = tenantManagementService.getInstitutionsPayload(generateCacheManipulationRequest(request, headers));
+
+        if (payload.matches(headers.getIfNoneMatch())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(payload.getETag())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(payload.getETag())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (acceptsGzip(headers)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.getGzip());
+        }
+        return response.body(payload.getJson());
     }
 
     @PostMapping("/cache/institutions/CILogon")
@@ -412,6 +446,40 @@ public class TenantManagementController {
                 .setCiLogonClientSecret(claim.getCiLogonSecret()).build();
     }
 
+    /**
+     * Checks whether the Accept-Encoding header allows a gzip response. An explicit gzip entry takes precedence over
+     * the * wildcard, and an entry with a q value of 0 refuses the encoding.
+     */
+    private static boolean acceptsGzip(HttpHeaders headers) {
+        Boolean gzip = null;
+        Boolean wildcard = null;
+
+        for (String header : headers.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String value : header.split(",")) {
+                String[] parts = value.split(";");
+                String coding = parts[0].trim().toLowerCase();
+                double quality = 1.0;
+                for (int i = 1; i < parts.length; i++) {
+                    String param = parts[i].trim();
+                    if (param.startsWith("q=")) {
+                        try {
+                            quality = Double.parseDouble(param.substring(2).trim());
+                        } catch (NumberFormatException ex) {
+                            quality = 0;
+                        }
+                    }
+                }
+
+                if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                    gzip = quality > 0;
+                } else if (coding.equals("*")) {
+                    wildcard = quality > 0;
+                }
+            }
+        }
+        return gzip != null ? gzip : Boolean.TRUE.equals(wildcard);
+    }
+
     private CacheManipulationRequest generateCacheManipulationRequest(CacheManipulationRequest request, @RequestHeader HttpHeaders headers) {
         Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers);
         if (claim.isPresent()) {
@@ -43,6 +43,7 @@ import com.veda.central.core.iam.api.UserSearchRequest;
 import com.veda.central.core.identity.api.AuthToken;
 import com.veda.central.core.user.management.api.LinkUserProfileRequest;
 import com.veda.central.core.user.management.api.SynchronizeUserDBRequest;
+import com.veda.central.core.user.management.api.SynchronizeUserDBStatus;
 import com.veda.central.core.user.management.api.UserProfileRequest;
 import com.veda.central.core.user.profile.api.GetAllUserProfilesResponse;
 import com.veda.central.core.user.profile.api.GetUpdateAuditTrailRequest;
@@ -482,6 +483,7 @@ public class UserManagementController {
                                                        @RequestParam(value = "offset") int offset,
                                                        @RequestParam(value = "limit") int limit,
                                                        @RequestParam("user.id") String userId,
+                                                       @RequestParam(value = "with_roles", defaultValue = "true") boolean withRoles,
                                                        @RequestHeader HttpHeaders headers) {
         Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, clientId);
 
@@ -496,6 +498,7 @@ public class UserManagementController {
                     .setOffset(offset)
                     .setLimit(limit)
                     .setUser(userSearchMetadata)
+                    .setExcludeRoles(!withRoles)
                     .build();
 
             FindUsersResponse response = userManagementService.findUsers(request);
@@ -721,6 +724,24 @@ public class UserManagementController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/db/synchronize/status")
+    @Operation(
+            summary = "Get User Database Synchronization Status",
+            description = "This operation retrieves the progress of the latest user database synchronization of the caller's tenant. " +
+                    "The returned SynchronizeUserDBStatus contains the state and mode of the run and the number of users " +
+                    "processed, created, updated and left unchanged so far."
+    )
+    public ResponseEntity<SynchronizeUserDBStatus> getSynchronizationStatus(@RequestHeader HttpHeaders headers) {
+        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers);
+
+        if (claim.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Request is not authorized");
+        }
+
+        SynchronizeUserDBStatus response = userManagementService.getSynchronizationStatus(claim.get().getTenantId());
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/userinfo")
     @Operation(
             summary = "Retrieve User Info",
@@ -211,12 +211,41 @@ public class CredentialStoreService {
         }
     }
 
+    /**
+     * Deletes the credential of the given type of an owner.
+     *
+     * @param ownerId the owner of the credential
+     * @param type    the type of the credential
+     */
+    public OperationStatus deleteCredential(long ownerId, Type type) {
+        try {
+            LOGGER.debug("Calling deleteSecret API for owner " + ownerId + " for type " + type);
+
+            vaultTemplate.delete(BASE_PATH + ownerId + "/" + type.name());
+
+            statusUpdater.updateStatus(Operations.DELETE_CREDENTIAL.name(),
+                    com.veda.central.core.model.commons.OperationStatus.SUCCESS,
+                    ownerId,
+                    null);
+
+            return OperationStatus.newBuilder().setState(true).build();
+
+        } catch (Exception ex) {
+            String msg = " operation failed for " + ownerId + " Type " + type.name();
+            statusUpdater.updateStatus(Operations.DELETE_CREDENTIAL.name(),
+                    com.veda.central.core.model.commons.OperationStatus.FAILED,
+                    ownerId,
+                    null);
+            throw new InternalServerException(msg, ex);
+        }
+    }
+
     public GetOperationsMetadataResponse getOperationMetadata(GetOperationsMetadataRequest request) {
         try {
             LOGGER.debug("Calling getOperationMetadata API for traceId " + request.getTraceId());
 
             List<OperationMetadata> metadata = new ArrayList<>();
-            List<StatusEntity> entities = statusUpdater.getOperationStatus(request.getTraceId());
+            List<StatusEntity> entities = statusUpdater.getOperationStatus(request.getTraceId(), request.getOffset(), request.getLimit());
             if (entities != null && !entities.isEmpty()) {
                 for (StatusEntity statusEntity : entities) {
                     OperationMetadata data = convertFromEntity(statusEntity);
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.federated.cilogon;
+
+import com.veda.central.service.federated.client.cilogon.CILogonClient;
+import com.veda.central.service.federated.client.cilogon.CILogonInstitution;
+import com.veda.central.service.federated.client.cilogon.CILogonInstitutionSnapshot;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the CILogon institution list in memory and refreshes it in the background, revalidating with the ETag and
+ * Last-Modified time of the held copy so that an unchanged list is not downloaded again. Readers always get the
+ * current snapshot without waiting on CILogon; when a refresh fails the last good copy keeps being served and the
+ * refresh is retried sooner.
+ */
+@Component
+public class CILogonInstitutionCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CILogonInstitutionCache.class);
+
+    private final CILogonClient ciLogonClient;
+    private final AtomicReference<CILogonInstitutionSnapshot> snapshot = new AtomicReference<>(CILogonInstitutionSnapshot.empty());
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cilogon-institution-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${ciLogon.institutions.refresh.interval.seconds:3600}")
+    private long refreshIntervalSeconds;
+
+    @Value("${ciLogon.institutions.retry.interval.seconds:60}")
+    private long retryIntervalSeconds;
+
+    public CILogonInstitutionCache(CILogonClient ciLogonClient) {
+        this.ciLogonClient = ciLogonClient;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.execute(this::refreshAndReschedule);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @return the latest institution list; empty until the first download has completed
+     */
+    public CILogonInstitutionSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Revalidates the held institution list with CILogon and replaces it if it changed.
+     *
+     * @return true if the held list is up to date, false if CILogon could not be reached
+     */
+    public boolean refresh() {
+        CILogonInstitutionSnapshot current = snapshot.get();
+        try {
+            ResponseEntity<CILogonInstitution[]> response = ciLogonClient.getInstitutions(current.getETag(), current.getLastModified());
+
+            if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                LOGGER.debug("CILogon institution list not modified since " + Instant.ofEpochMilli(current.getFetchedAt()));
+                return true;
+            }
+
+            if (response.getBody() == null) {
+                LOGGER.warn("CILogon returned an empty institution list, keeping " + current.size() + " institutions");
+                return false;
+            }
+
+            CILogonInstitutionSnapshot fetched = CILogonInstitutionSnapshot.of(response.getBody(),
+                    response.getHeaders().getETag(), response.getHeaders().getLastModified());
+            snapshot.set(fetched);
+            LOGGER.info("Refreshed CILogon institution list with " + fetched.size() + " institutions");
+            return true;
+
+        } catch (Exception ex) {
+            LOGGER.warn("Error occurred while refreshing CILogon institution list, keeping " + current.size()
+                    + " institutions, reason: " + ex.getMessage());
+            return false;
+        }
+    }
+
+    private void refreshAndReschedule() {
+        long delay = refresh() ? refreshIntervalSeconds : retryIntervalSeconds;
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(this::refreshAndReschedule, delay, TimeUnit.SECONDS);
+        }
+    }
+}
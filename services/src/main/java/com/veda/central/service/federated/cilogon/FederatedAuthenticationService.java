@@ -19,6 +19,8 @@
 
 package com.veda.central.service.federated.cilogon;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.veda.central.core.commons.StatusUpdater;
 import com.veda.central.core.mapper.federated.InstitutionMapper;
 import com.veda.central.core.model.commons.OperationStatus;
@@ -28,6 +30,7 @@ import com.veda.central.core.repo.federated.CiLogonInstitutionCacheRepository;
 import com.veda.central.service.exceptions.FederatedAuthenticationServiceException;
 import com.veda.central.service.exceptions.InternalServerException;
 import com.veda.central.service.federated.client.cilogon.CILogonClient;
+import com.veda.central.service.federated.client.cilogon.CILogonInstitutionSnapshot;
 import com.veda.central.service.federated.client.cilogon.CILogonResponse;
 import org.apache.commons.lang3.StringUtils;
 import com.veda.central.core.federated.authentication.api.CacheManipulationRequest;
@@ -45,14 +48,19 @@ import com.veda.central.core.federated.authentication.api.RegisterClientResponse
 import com.veda.central.core.federated.authentication.api.Status;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Set;
 
 @Service
 public class FederatedAuthenticationService {
@@ -65,11 +73,25 @@ public class FederatedAuthenticationService {
 
     private final CiLogonInstitutionCacheRepository institutionRepository;
 
+    private final CILogonInstitutionCache institutionCache;
 
-    public FederatedAuthenticationService(CILogonClient ciLogonClient, StatusUpdater statusUpdater, CiLogonInstitutionCacheRepository institutionRepository) {
+    // Filtered institutions of each tenant, valid while the CILogon snapshot they were built from is current.
+    // Dropped when the tenant's allow/block rules change here; the TTL bounds staleness for changes made elsewhere
+    private final Cache<Long, TenantInstitutions> tenantInstitutions;
+
+
+    public FederatedAuthenticationService(CILogonClient ciLogonClient, StatusUpdater statusUpdater, CiLogonInstitutionCacheRepository institutionRepository,
+                                          CILogonInstitutionCache institutionCache,
+                                          @Value("${ciLogon.institutions.tenant.cache.ttl.seconds:300}") long tenantCacheTtlSeconds,
+                                          @Value("${ciLogon.institutions.tenant.cache.size:1000}") long tenantCacheSize) {
         this.ciLogonClient = ciLogonClient;
         this.statusUpdater = statusUpdater;
         this.institutionRepository = institutionRepository;
+        this.institutionCache = institutionCache;
+        this.tenantInstitutions = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(tenantCacheTtlSeconds))
+                .maximumSize(tenantCacheSize)
+                .build();
     }
 
     public RegisterClientResponse addClient(ClientMetadata request) {
@@ -183,8 +205,8 @@ public class FederatedAuthenticationService {
         try {
             LOGGER.debug("Calling getOperationMetadata API for traceId " + request.getTraceId());
 
-            List<OperationMetadata> metadata = null;
-            List<StatusEntity> entities = statusUpdater.getOperationStatus(request.getTraceId());
+            List<OperationMetadata> metadata = new ArrayList<>();
+            List<StatusEntity> entities = statusUpdater.getOperationStatus(request.getTraceId(), request.getOffset(), request.getLimit());
 
             if (entities != null && !entities.isEmpty()) {
                 metadata = entities.stream()
@@ -211,16 +233,15 @@ public class FederatedAuthenticationService {
                 ciLogonInstitutions.add(InstitutionMapper.convert(tenantId, id, type.name(), request.getPerformedBy()));
             });
 
-            for (CILogonInstitution ciLogonInstitution : ciLogonInstitutions) {
-                Optional<CILogonInstitution> optionalCILogonInstitution = institutionRepository.findById(ciLogonInstitution.getId());
-                if (optionalCILogonInstitution.isPresent()) {
-                    String msg = " Duplicate entry with Id  " + ciLogonInstitution.getInstitutionId();
-                    LOGGER.error(msg);
-                    throw new DuplicateKeyException(msg);
-                }
-
+            List<String> savedIds = ciLogonInstitutions.stream().map(CILogonInstitution::getId).toList();
+            List<CILogonInstitution> existingInstitutions = institutionRepository.findAllById(savedIds);
+            if (!existingInstitutions.isEmpty()) {
+                String msg = " Duplicate entry with Id  " + existingInstitutions.get(0).getInstitutionId();
+                LOGGER.error(msg);
+                throw new DuplicateKeyException(msg);
             }
             institutionRepository.saveAll(ciLogonInstitutions);
+            tenantInstitutions.invalidate(tenantId);
 
             return Status.newBuilder().setStatus(true).build();
 
@@ -237,13 +258,10 @@ public class FederatedAuthenticationService {
 
             long tenantId = request.getTenantId();
             List<String> ids = request.getInstitutionIdsList();
-            List<CILogonInstitution> ciLogonInstitutions = new ArrayList<>();
-            ids.forEach(id -> {
-                String savedId = id + "@" + tenantId;
-                Optional<CILogonInstitution> ciLogonList = institutionRepository.findById(savedId);
-                ciLogonList.ifPresent(ciLogonInstitutions::add);
-            });
-            institutionRepository.deleteAll(ciLogonInstitutions);
+            List<String> savedIds = ids.stream().map(id -> id + "@" + tenantId).toList();
+            List<CILogonInstitution> ciLogonInstitutions = institutionRepository.findAllById(savedIds);
+            institutionRepository.deleteAllInBatch(ciLogonInstitutions);
+            tenantInstitutions.invalidate(tenantId);
 
             return Status.newBuilder().setStatus(true).build();
 
@@ -258,21 +276,19 @@ public class FederatedAuthenticationService {
         try {
             LOGGER.debug("Calling getFromCache API for tenantId " + request.getTenantId());
 
-            long tenant = request.getTenantId();
-            String type = request.getType().name();
-            List<CILogonInstitution> institutions = institutionRepository.findAllByTenantIdAndType(tenant, type);
+            TenantInstitutions tenant = getTenantInstitutions(request.getTenantId());
+            Set<String> institutionIds = switch (request.getType()) {
+                case ALLOWLIST -> tenant.allowed;
+                case BLOCKLIST -> tenant.blocked;
+                default -> Collections.emptySet();
+            };
             List<Institution> institutionList = new ArrayList<>();
 
-            com.veda.central.service.federated.client.cilogon.CILogonInstitution[] ciLogonInstitutions = ciLogonClient.getInstitutions();
-
-            if (institutions != null && !institutions.isEmpty()) {
-                for (CILogonInstitution institution : institutions) {
-                    for (com.veda.central.service.federated.client.cilogon.CILogonInstitution
-                            ciLogonInstitution : ciLogonInstitutions) {
-                        if (ciLogonInstitution.getEntityId().equals(institution.getInstitutionId())) {
-                            institutionList.add(convertCILogonToInstitution(ciLogonInstitution));
-                        }
-                    }
+            for (String institutionId : institutionIds) {
+                com.veda.central.service.federated.client.cilogon.CILogonInstitution ciLogonInstitution =
+                        tenant.snapshot.find(institutionId);
+                if (ciLogonInstitution != null) {
+                    institutionList.add(convertCILogonToInstitution(ciLogonInstitution));
                 }
             }
             return GetInstitutionsResponse.newBuilder().addAllInstitutions(institutionList).build();
@@ -289,52 +305,83 @@ public class FederatedAuthenticationService {
         try {
             LOGGER.debug("Calling getInstitutions API for tenantId " + request.getTenantId());
 
-            long tenant = request.getTenantId();
-            List<CILogonInstitution> institutions = institutionRepository.findAllByTenantIdAndType(tenant, InstitutionCacheType.ALLOWLIST.name());
-            List<CILogonInstitution> blockedInstitutions = institutionRepository.findAllByTenantIdAndType(tenant, InstitutionCacheType.BLOCKLIST.name());
+            List<Institution> institutionList = getTenantInstitutions(request.getTenantId()).institutions;
 
-            com.veda.central.service.federated.client.cilogon.CILogonInstitution[] ciLogonInstitutions = ciLogonClient.getInstitutions();
-            List<com.veda.central.service.federated.client.cilogon.CILogonInstitution> selectedLists = new ArrayList<>();
+            return GetInstitutionsResponse.newBuilder().addAllInstitutions(institutionList).build();
 
-            if (institutions.isEmpty() && blockedInstitutions.isEmpty()) {
-                selectedLists.addAll(Arrays.asList(ciLogonInstitutions));
+        } catch (Exception ex) {
+            String msg = " Error at federated authentication core service " + ex;
+            LOGGER.error(msg);
+            throw new InternalServerException(msg, ex);
+        }
+    }
 
-            } else if (!institutions.isEmpty()) {
-                for (com.veda.central.service.federated.client.cilogon.CILogonInstitution ciLogonInstitution : ciLogonInstitutions) {
-                    institutions.forEach(it -> {
-                        if (it.getInstitutionId().equals(ciLogonInstitution.getEntityId()) && it.getType().equals(InstitutionCacheType.ALLOWLIST.name())) {
-                            selectedLists.add(ciLogonInstitution);
-                        }
-                    });
-                }
+    /**
+     * Provides the institution list of the tenant as pre-rendered JSON, rendered once whenever the CILogon snapshot
+     * or the tenant's allow/block rules change.
+     *
+     * @param tenantId the tenant id
+     * @return the rendered institution list with its ETag
+     */
+    public InstitutionsPayload getInstitutionsPayload(long tenantId) {
+        try {
+            return getTenantInstitutions(tenantId).payload;
 
-            } else {
-                for (com.veda.central.service.federated.client.cilogon.CILogonInstitution ciLogonInstitution : ciLogonInstitutions) {
-                    AtomicBoolean doNotAdd = new AtomicBoolean(false);
-                    for (CILogonInstitution it : blockedInstitutions) {
-                        if (it.getInstitutionId().equals(ciLogonInstitution.getEntityId())) {
-                            doNotAdd.set(true);
-                            break;
-                        }
-                    }
+        } catch (Exception ex) {
+            String msg = " Error at federated authentication core service " + ex;
+            LOGGER.error(msg);
+            throw new InternalServerException(msg, ex);
+        }
+    }
 
-                    if (!doNotAdd.get()) {
-                        selectedLists.add(ciLogonInstitution);
-                    }
+    private TenantInstitutions getTenantInstitutions(long tenantId) {
+        CILogonInstitutionSnapshot snapshot = institutionCache.getSnapshot();
+        TenantInstitutions tenant = tenantInstitutions.getIfPresent(tenantId);
+        if (tenant != null && tenant.snapshot == snapshot) {
+            return tenant;
+        }
 
-                }
+        // Loaded within compute so that an invalidation by addToCache or removeFromCache waits for the load and
+        // removes its result, instead of a load of the old rules being written back after the invalidation
+        return tenantInstitutions.asMap().compute(tenantId, (id, current) -> {
+            if (current != null && current.snapshot == snapshot) {
+                return current;
             }
+            try {
+                return loadTenantInstitutions(id, snapshot);
+            } catch (IOException | NoSuchAlgorithmException ex) {
+                throw new RuntimeException("Error occurred while loading the institutions of tenant " + id, ex);
+            }
+        });
+    }
 
-            List<Institution> institutionList = new ArrayList<>();
-            selectedLists.forEach(sl -> institutionList.add(convertCILogonToInstitution(sl)));
-
-            return GetInstitutionsResponse.newBuilder().addAllInstitutions(institutionList).build();
+    /**
+     * Loads the allow and block rules of the tenant in one query and filters the CILogon institutions against them in
+     * a single pass. When the tenant has allowed institutions only those are listed, otherwise every institution that
+     * is not blocked.
+     */
+    private TenantInstitutions loadTenantInstitutions(long tenantId, CILogonInstitutionSnapshot snapshot)
+            throws IOException, NoSuchAlgorithmException {
+        Set<String> allowed = new LinkedHashSet<>();
+        Set<String> blocked = new LinkedHashSet<>();
+        for (CILogonInstitution institution : institutionRepository.findAllByTenantId(tenantId)) {
+            if (InstitutionCacheType.ALLOWLIST.name().equals(institution.getType())) {
+                allowed.add(institution.getInstitutionId());
+            } else if (InstitutionCacheType.BLOCKLIST.name().equals(institution.getType())) {
+                blocked.add(institution.getInstitutionId());
+            }
+        }
 
-        } catch (Exception ex) {
-            String msg = " Error at federated authentication core service " + ex;
-            LOGGER.error(msg);
-            throw new InternalServerException(msg, ex);
+        List<Institution> institutions = new ArrayList<>();
+        for (com.veda.central.service.federated.client.cilogon.CILogonInstitution ciLogonInstitution : snapshot.getInstitutions()) {
+            String entityId = ciLogonInstitution.getEntityId();
+            if (allowed.isEmpty() ? !blocked.contains(entityId) : allowed.contains(entityId)) {
+                institutions.add(convertCILogonToInstitution(ciLogonInstitution));
+            }
         }
+        InstitutionsPayload payload = InstitutionsPayload.render(
+                GetInstitutionsResponse.newBuilder().addAllInstitutions(institutions).build());
+        return new TenantInstitutions(snapshot, allowed, blocked, Collections.unmodifiableList(institutions), payload);
     }
 
     private OperationMetadata convertFromEntity(StatusEntity entity) {
@@ -354,4 +401,22 @@ public class FederatedAuthenticationService {
         return msg.build();
     }
 
+
+    private static final class TenantInstitutions {
+
+        private final CILogonInstitutionSnapshot snapshot;
+        private final Set<String> allowed;
+        private final Set<String> blocked;
+        private final List<Institution> institutions;
+        private final InstitutionsPayload payload;
+
+        private TenantInstitutions(CILogonInstitutionSnapshot snapshot, Set<String> allowed, Set<String> blocked,
+                                   List<Institution> institutions, InstitutionsPayload payload) {
+            this.snapshot = snapshot;
+            this.allowed = allowed;
+            this.blocked = blocked;
+            this.institutions = institutions;
+            this.payload = payload;
+        }
+    }
 }
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.federated.cilogon;
+
+import com.google.protobuf.util.JsonFormat;
+import com.veda.central.core.federated.authentication.api.GetInstitutionsResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The institution list of a tenant rendered once as the JSON body the REST API returns, together with its
+ * gzip-compressed form and a strong ETag derived from the content.
+ */
+public final class InstitutionsPayload {
+
+    private final byte[] json;
+
+    private final byte[] gzip;
+
+    private final String eTag;
+
+    private InstitutionsPayload(byte[] json, byte[] gzip, String eTag) {
+        this.json = json;
+        this.gzip = gzip;
+        this.eTag = eTag;
+    }
+
+    public static InstitutionsPayload render(GetInstitutionsResponse response) throws IOException, NoSuchAlgorithmException {
+        byte[] json = JsonFormat.printer().preservingProtoFieldNames().print(response).getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        }
+
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+        String eTag = "\"" + HexFormat.of().formatHex(Arrays.copyOf(digest, 16)) + "\"";
+        return new InstitutionsPayload(json, compressed.toByteArray(), eTag);
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    /**
+     * @return the quoted strong ETag of the JSON body
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * @param ifNoneMatch the entity tags of an If-None-Match request header
+     * @return true if the client already holds this payload
+     */
+    public boolean matches(Iterable<String> ifNoneMatch) {
+        for (String tag : ifNoneMatch) {
+            String candidate = tag.startsWith("W/") ? tag.substring(2) : tag;
+            if ("*".equals(candidate) || eTag.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -19,6 +19,16 @@
 
 package com.veda.central.service.federated.client.cilogon;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.json.JSONException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,11 +38,19 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.time.Instant;
 import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 /**
  * This class is responsible for CILogon operations
@@ -40,7 +58,10 @@ import java.util.Base64;
 @Component
 public class CILogonClient {
     private final static Logger LOGGER = LoggerFactory.getLogger(CILogonClient.class);
-    private final RestTemplate template = new RestTemplate();
+    private RestTemplate template;
+    private CloseableHttpClient httpClient;
+    private CircuitBreaker circuitBreaker;
+    private String bearerToken;
     @Value("${ciLogon.admin.client.id}")
     private String adminClientId;
     @Value("${ciLogon.admin.client.secret}")
@@ -49,6 +70,51 @@ public class CILogonClient {
     private String ciLogonAuthEndpoint;
     @Value("${ciLogon.institutions.endpoint:https://cilogon.org/idplist/}")
     private String ciLogonInstitutionsEndpoint;
+    @Value("${ciLogon.http.connect.timeout.millis:5000}")
+    private long connectTimeoutMillis;
+    @Value("${ciLogon.http.read.timeout.millis:30000}")
+    private long readTimeoutMillis;
+    @Value("${ciLogon.http.max.connections:20}")
+    private int maxConnections;
+    @Value("${ciLogon.http.retry.max.attempts:3}")
+    private int retryMaxAttempts;
+    @Value("${ciLogon.http.retry.backoff.millis:200}")
+    private long retryBackoffMillis;
+    @Value("${ciLogon.http.circuit.failure.threshold:5}")
+    private int circuitFailureThreshold;
+    @Value("${ciLogon.http.circuit.open.millis:30000}")
+    private long circuitOpenMillis;
+
+    @PostConstruct
+    public void init() {
+        String decoded = adminClientId + ":" + adminClientSecret;
+        bearerToken = "Bearer " + Base64.getEncoder().encodeToString(decoded.getBytes());
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                        .build())
+                .build();
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                        .build())
+                .disableAutomaticRetries()
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+        template = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        circuitBreaker = new CircuitBreaker(circuitFailureThreshold, circuitOpenMillis);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
+    }
 
     public CILogonResponse registerClient(@NotNull String clientName, @NotNull String[] redirectURIs,
                                           @NotNull String comment, String[] scopes, String homeURL, String contactEmail) throws JSONException {
@@ -75,7 +141,8 @@ public class CILogonClient {
         headers.setContentType(MediaType.APPLICATION_JSON);
 
         HttpEntity<CILogonRequest> entity = new HttpEntity<>(req, headers);
-        ResponseEntity<CILogonResponse> responseEntity = template.exchange(ciLogonAuthEndpoint, HttpMethod.POST, entity, CILogonResponse.class);
+        ResponseEntity<CILogonResponse> responseEntity = execute("registerClient", false,
+                () -> template.exchange(ciLogonAuthEndpoint, HttpMethod.POST, entity, CILogonResponse.class));
         return responseEntity.getBody();
     }
 
@@ -87,7 +154,8 @@ public class CILogonClient {
         String url = ciLogonAuthEndpoint + "?client_id=" + clientId;
         LOGGER.info("URL: {}", url);
         HttpEntity<String> entity = new HttpEntity<String>("parameters", headers);
-        ResponseEntity<CILogonResponse> responseEntity = template.exchange(url, HttpMethod.GET, entity, CILogonResponse.class);
+        ResponseEntity<CILogonResponse> responseEntity = execute("getClient", true,
+                () -> template.exchange(url, HttpMethod.GET, entity, CILogonResponse.class));
 
         return responseEntity.getBody();
     }
@@ -116,7 +184,10 @@ public class CILogonClient {
         headers.setContentType(MediaType.APPLICATION_JSON);
         HttpEntity<CILogonRequest> entity = new HttpEntity<CILogonRequest>(req, headers);
         String url = ciLogonAuthEndpoint + "?client_id=" + clientId;
-        template.put(url, entity);
+        execute("updateClient", true, () -> {
+            template.put(url, entity);
+            return null;
+        });
     }
 
     public void deleteClient(@NotNull String clientId) {
@@ -124,25 +195,86 @@ public class CILogonClient {
         HttpHeaders headers = new HttpHeaders();
         headers.add("Authorization", getBearerToken());
         HttpEntity<Object> entity = new HttpEntity<Object>(headers);
-        template.exchange(url, HttpMethod.DELETE, entity, String.class);
+        execute("deleteClient", true, () -> template.exchange(url, HttpMethod.DELETE, entity, String.class));
     }
 
     public CILogonInstitution[] getInstitutions() {
+        return getInstitutions(null, -1).getBody();
+    }
+
+    /**
+     * Fetches the institution list, revalidating the copy already held by the caller. When the list has not changed
+     * since the given validators, CILogon answers 304 Not Modified without a body.
+     *
+     * @param eTag         the ETag of the copy held, or null
+     * @param lastModified the Last-Modified time of the copy held in milliseconds since the epoch, or -1
+     * @return the response, with the new list and its validators, or status 304 and no body
+     */
+    public ResponseEntity<CILogonInstitution[]> getInstitutions(String eTag, long lastModified) {
         HttpHeaders headers = new HttpHeaders();
         headers.add("Authorization", getBearerToken());
         headers.setContentType(MediaType.APPLICATION_JSON);
-        HttpEntity entity = new HttpEntity(headers);
-
-        String url = ciLogonInstitutionsEndpoint;
-
-        ResponseEntity<CILogonInstitution[]> responseEntity = template.exchange(url, HttpMethod.GET, entity, CILogonInstitution[].class);
+        if (eTag != null) {
+            headers.setIfNoneMatch(eTag);
+        }
+        if (lastModified > 0) {
+            headers.setIfModifiedSince(lastModified);
+        }
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
 
-        return responseEntity.getBody();
+        return execute("getInstitutions", true,
+                () -> template.exchange(ciLogonInstitutionsEndpoint, HttpMethod.GET, entity, CILogonInstitution[].class));
     }
 
     private String getBearerToken() {
-        String decoded = adminClientId + ":" + adminClientSecret;
-        return "Bearer " + Base64.getEncoder().encodeToString(decoded.getBytes());
+        return bearerToken;
+    }
+
+    /**
+     * Runs a call to CILogon through the circuit breaker. Idempotent calls that fail with an I/O error or a server
+     * error are retried a bounded number of times, with exponential backoff and random jitter between attempts.
+     */
+    private <T> T execute(String operation, boolean idempotent, Supplier<T> call) {
+        int attempts = idempotent ? Math.max(1, retryMaxAttempts) : 1;
+
+        for (int attempt = 1; ; attempt++) {
+            if (!circuitBreaker.allowRequest()) {
+                String msg = "CILogon " + operation + " rejected, circuit open until " + Instant.ofEpochMilli(circuitBreaker.getOpenUntil());
+                LOGGER.warn(msg);
+                throw new ResourceAccessException(msg);
+            }
+
+            try {
+                T result = call.get();
+                circuitBreaker.recordSuccess();
+                return result;
+
+            } catch (HttpClientErrorException ex) {
+                circuitBreaker.recordSuccess();
+                throw ex;
+
+            } catch (ResourceAccessException | HttpServerErrorException ex) {
+                circuitBreaker.recordFailure();
+                if (attempt >= attempts) {
+                    throw ex;
+                }
+
+                long backoff = retryBackoffMillis << (attempt - 1);
+                long delay = ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+                LOGGER.warn("CILogon " + operation + " failed on attempt " + attempt + ", retrying in " + delay + " ms, reason: " + ex.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+
+            } catch (RuntimeException ex) {
+                // Any other failure, e.g. while extracting the response, must still settle a half-open trial call
+                circuitBreaker.recordFailure();
+                throw ex;
+            }
+        }
     }
 
 }
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.federated.client.cilogon;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable copy of the CILogon institution list in CILogon's order, with an index sorted by entity id so that an
+ * institution can be found by binary search, together with the validators needed to revalidate it.
+ */
+public final class CILogonInstitutionSnapshot {
+
+    private static final CILogonInstitutionSnapshot EMPTY = new CILogonInstitutionSnapshot(new CILogonInstitution[0], null, -1, 0);
+
+    private final CILogonInstitution[] institutions;
+
+    private final String[] entityIds;
+
+    private final int[] positions;
+
+    private final String eTag;
+
+    private final long lastModified;
+
+    private final long fetchedAt;
+
+    private CILogonInstitutionSnapshot(CILogonInstitution[] institutions, String eTag, long lastModified, long fetchedAt) {
+        this.institutions = institutions;
+        this.positions = IntStream.range(0, institutions.length)
+                .boxed()
+                .sorted((a, b) -> institutions[a].getEntityId().compareTo(institutions[b].getEntityId()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        this.entityIds = new String[institutions.length];
+        for (int i = 0; i < positions.length; i++) {
+            entityIds[i] = institutions[positions[i]].getEntityId();
+        }
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+        this.fetchedAt = fetchedAt;
+    }
+
+    public static CILogonInstitutionSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param institutions the institutions as returned by CILogon; entries without an entity id are dropped
+     * @param eTag         the ETag of the response, or null
+     * @param lastModified the Last-Modified time of the response in milliseconds since the epoch, or -1
+     */
+    public static CILogonInstitutionSnapshot of(CILogonInstitution[] institutions, String eTag, long lastModified) {
+        CILogonInstitution[] valid = Arrays.stream(institutions)
+                .filter(institution -> institution != null && institution.getEntityId() != null)
+                .toArray(CILogonInstitution[]::new);
+        return new CILogonInstitutionSnapshot(valid, eTag, lastModified, System.currentTimeMillis());
+    }
+
+    /**
+     * @return all institutions, in the order CILogon returned them
+     */
+    public List<CILogonInstitution> getInstitutions() {
+        return Collections.unmodifiableList(Arrays.asList(institutions));
+    }
+
+    /**
+     * @return the institution with the given entity id, or null if there is none
+     */
+    public CILogonInstitution find(String entityId) {
+        if (entityId == null) {
+            return null;
+        }
+        int index = Arrays.binarySearch(entityIds, entityId);
+        return index >= 0 ? institutions[positions[index]] : null;
+    }
+
+    public int size() {
+        return institutions.length;
+    }
+
+    public boolean isEmpty() {
+        return institutions.length == 0;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * @return when the list was downloaded, in milliseconds since the epoch, or 0 if it never was
+     */
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+}
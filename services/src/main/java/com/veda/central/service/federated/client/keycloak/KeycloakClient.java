@@ -19,6 +19,7 @@
 
 package com.veda.central.service.federated.client.keycloak;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.veda.central.api.exception.UnauthorizedException;
 import com.veda.central.core.constants.Constants;
@@ -30,6 +31,7 @@ import org.keycloak.admin.client.resource.RealmResource;
 import org.keycloak.admin.client.resource.RoleMappingResource;
 import org.keycloak.admin.client.resource.RoleResource;
 import org.keycloak.admin.client.resource.UserResource;
+import org.keycloak.representations.idm.AdminEventRepresentation;
 import org.keycloak.representations.idm.ClientRepresentation;
 import org.keycloak.representations.idm.CredentialRepresentation;
 import org.keycloak.representations.idm.EventRepresentation;
@@ -37,11 +39,11 @@ import org.keycloak.representations.idm.FederatedIdentityRepresentation;
 import org.keycloak.representations.idm.GroupRepresentation;
 import org.keycloak.representations.idm.IdentityProviderRepresentation;
 import org.keycloak.representations.idm.MappingsRepresentation;
+import org.keycloak.representations.idm.PartialImportRepresentation;
 import org.keycloak.representations.idm.ProtocolMapperRepresentation;
 import org.keycloak.representations.idm.RealmEventsConfigRepresentation;
 import org.keycloak.representations.idm.RealmRepresentation;
 import org.keycloak.representations.idm.RoleRepresentation;
-import org.keycloak.representations.idm.RolesRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
 import org.keycloak.representations.idm.UserSessionRepresentation;
 import org.slf4j.Logger;
@@ -56,12 +58,28 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -73,9 +91,13 @@ public class KeycloakClient {
 
     private static final int ACCESS_TOKEN_LIFE_SPAN = 1800;
     private static final int SESSION_IDLE_TIMEOUT = 3600;
+    private static final int ADMIN_EVENTS_PAGE_SIZE = 500;
+    private static final int IDP_LINKS_PAGE_SIZE = 100;
 
     private final ObjectMapper objectMapper;
 
+    private final KeycloakRoleCache roleCache;
+
     @Value("${iam.server.client.id:admin-cli}")
     private String clientId;
 
@@ -106,26 +128,23 @@ public class KeycloakClient {
     @Value("${iam.federated.cilogon.jwksUri:https://cilogon.org/oauth2/certs}")
     private String jwksUri;
 
-    public KeycloakClient(ObjectMapper objectMapper) {
+    @Value("${iam.server.user.operation.concurrency:8}")
+    private int userOperationConcurrency;
+
+    public KeycloakClient(ObjectMapper objectMapper,
+                          @Value("${iam.server.role.cache.ttl.seconds:60}") long roleCacheTtlSeconds,
+                          @Value("${iam.server.role.cache.size:10000}") long roleCacheSize) {
         this.objectMapper = objectMapper;
+        this.roleCache = new KeycloakRoleCache(Duration.ofSeconds(roleCacheTtlSeconds), roleCacheSize);
     }
 
     public void createRealm(String realmId, String displayName) {
         try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
-            // create realm
-            RealmRepresentation newRealmDetails = new RealmRepresentation();
-            newRealmDetails.setEnabled(true);
-            newRealmDetails.setId(realmId);
-            newRealmDetails.setDisplayName(displayName);
-            newRealmDetails.setRealm(realmId);
-            // Following two settings allow duplicate email addresses
-            newRealmDetails.setLoginWithEmailAllowed(false);
-            newRealmDetails.setDuplicateEmailsAllowed(true);
             // Default access token lifespan to 30 minutes, SSO session idle to 60 minutes
-            newRealmDetails.setAccessTokenLifespan(ACCESS_TOKEN_LIFE_SPAN);
-            newRealmDetails.setSsoSessionIdleTimeout(SESSION_IDLE_TIMEOUT);
-            RealmRepresentation realmWithRoles = createDefaultRoles(newRealmDetails);
-            client.realms().create(realmWithRoles);
+            RealmRepresentation realm = KeycloakRealmTemplate.forRealm(realmId, displayName)
+                    .withTokenLifespans(ACCESS_TOKEN_LIFE_SPAN, SESSION_IDLE_TIMEOUT)
+                    .render();
+            client.realms().create(realm);
 
         } catch (Exception ex) {
             String msg = "Error creating Realm in Keycloak Server, reason: " + ex.getMessage();
@@ -134,6 +153,33 @@ public class KeycloakClient {
         }
     }
 
+    /**
+     * Creates a tenant realm together with its admin account, the tenant client and the client's service account
+     * in a single realm import, replacing the separate createRealm, createRealmAdminAccount and configureClient calls.
+     *
+     * @return the id and generated secret of the tenant client
+     */
+    public KeycloakClientSecret createTenantRealm(String realmId, String displayName, String adminUsername,
+                                                  String adminFirstname, String adminLastname, String adminEmail,
+                                                  String adminPassword, String clientName, @NotNull String tenantURL,
+                                                  List<String> redirectUris) {
+        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+            KeycloakRealmTemplate template = KeycloakRealmTemplate.forRealm(realmId, displayName)
+                    .withTokenLifespans(ACCESS_TOKEN_LIFE_SPAN, SESSION_IDLE_TIMEOUT)
+                    .withAdmin(adminUsername, adminFirstname, adminLastname, adminEmail, adminPassword)
+                    .withClient(clientName, tenantURL, redirectUris);
+
+            client.realms().create(template.render());
+            roleCache.invalidate(realmId);
+            return new KeycloakClientSecret(template.getClientId(), template.getClientSecret());
+
+        } catch (Exception ex) {
+            String msg = "Error creating tenant Realm in Keycloak Server, reason: " + ex.getMessage();
+            LOGGER.error(msg, ex);
+            throw new RuntimeException(msg, ex);
+        }
+    }
+
 
     public void updateRealm(String realmId, String displayName) {
         try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
@@ -435,6 +481,145 @@ public class KeycloakClient {
     }
 
 
+    /**
+     * Creates and enables a batch of users. Each user is submitted as a single representation carrying its password
+     * and attributes, and its realm and client roles are mapped right after creation. Roles are resolved once per
+     * batch. All requests share one pooled session and at most parallelism of them are in flight at a time.
+     *
+     * @param realmId     the ID of the realm
+     * @param accessToken the access token used to create the users
+     * @param clientId    the client whose roles are listed under each user's client roles
+     * @param users       the users to create, with credentials, attributes, realm roles and client roles set
+     * @param parallelism the maximum number of concurrent requests
+     * @return the usernames that could not be registered, mapped to the failure reason
+     * @throws UnauthorizedException if the access token is not allowed to create users
+     */
+    public Map<String, String> createUsers(String realmId, String accessToken, String clientId,
+                                           List<UserRepresentation> users, int parallelism) throws UnauthorizedException {
+        Map<String, String> failedUsers = new ConcurrentHashMap<>();
+        if (users.isEmpty()) {
+            return failedUsers;
+        }
+
+        int poolSize = Math.max(1, Math.min(parallelism, users.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        AtomicBoolean unauthorized = new AtomicBoolean(false);
+
+        try (Keycloak client = getClient(iamServerURL, realmId, accessToken, poolSize);
+             Keycloak adminClient = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword, poolSize)) {
+            RealmResource realmResource = client.realm(realmId);
+            RealmResource adminRealmResource = adminClient.realm(realmId);
+
+            Map<String, RoleRepresentation> realmRoles = new HashMap<>();
+            Map<String, RoleRepresentation> clientRoles = new HashMap<>();
+            String clientUUID = resolveRoles(adminRealmResource, clientId, users, realmRoles, clientRoles);
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (UserRepresentation user : users) {
+                futures.add(executor.submit(() -> {
+                    if (unauthorized.get()) {
+                        failedUsers.put(user.getUsername(), "Request aborted");
+                        return;
+                    }
+                    try {
+                        createUser(realmResource, adminRealmResource, user, clientId, clientUUID, realmRoles, clientRoles);
+                    } catch (UnauthorizedException ex) {
+                        unauthorized.set(true);
+                        failedUsers.put(user.getUsername(), ex.getMessage());
+                    } catch (Exception ex) {
+                        LOGGER.error("Error occurred while registering user " + user.getUsername() + ", reason: " + ex.getMessage());
+                        failedUsers.put(user.getUsername(), ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName());
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+        } catch (Exception ex) {
+            String msg = "Error occurred while registering users in realm " + realmId + ", reason: " + ex.getMessage();
+            LOGGER.error(msg, ex);
+            throw new RuntimeException(msg, ex);
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (unauthorized.get()) {
+            String msg = "Request for user account creation failed, reason: HTTP 401 Unauthorized";
+            LOGGER.error(msg);
+            throw new UnauthorizedException(msg, null);
+        }
+        return failedUsers;
+    }
+
+
+    /**
+     * Imports users in chunks through the realm partial import endpoint, one request per chunk over a single session
+     * of the caller. Each user's credentials, attributes and realm and client role mappings are applied by the import.
+     * A chunk rejected by Keycloak is reported with its error and does not stop the remaining chunks.
+     *
+     * @param realmId     the ID of the realm
+     * @param accessToken the access token used to import the users
+     * @param users       the users to import, with credentials, attributes, realm roles and client roles set
+     * @param chunkSize   the number of users sent per request
+     * @param policy      what Keycloak does with users that already exist
+     * @return the outcome of each chunk, in order
+     * @throws UnauthorizedException if the access token is not allowed to import users
+     */
+    public List<KeycloakUserImportChunk> importUsers(String realmId, String accessToken, List<UserRepresentation> users,
+                                                     int chunkSize, PartialImportRepresentation.Policy policy) throws UnauthorizedException {
+        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
+            RealmResource realmResource = client.realm(realmId);
+            List<KeycloakUserImportChunk> chunks = new ArrayList<>();
+
+            for (int from = 0; from < users.size(); from += chunkSize) {
+                List<UserRepresentation> chunk = users.subList(from, Math.min(from + chunkSize, users.size()));
+                PartialImportRepresentation representation = new PartialImportRepresentation();
+                representation.setUsers(chunk);
+                representation.setIfResourceExists(policy.name());
+
+                long start = System.currentTimeMillis();
+                try (Response response = realmResource.partialImport(representation)) {
+                    long duration = System.currentTimeMillis() - start;
+
+                    if (response.getStatus() == HttpStatus.SC_OK) {
+                        Map<String, String> actions = new HashMap<>();
+                        JsonNode results = objectMapper.readTree(response.readEntity(String.class)).path("results");
+                        for (JsonNode result : results) {
+                            if ("USER".equals(result.path("resourceType").asText())) {
+                                actions.put(result.path("resourceName").asText(), result.path("action").asText());
+                            }
+                        }
+                        chunks.add(new KeycloakUserImportChunk(chunk.size(), duration, actions, null));
+
+                    } else if (response.getStatus() == HttpStatus.SC_UNAUTHORIZED || response.getStatus() == HttpStatus.SC_FORBIDDEN) {
+                        String msg = "Error occurred while importing users, reason: HTTP " + response.getStatus() + " "
+                                + response.getStatusInfo();
+                        LOGGER.error(msg);
+                        throw new UnauthorizedException(msg, null);
+
+                    } else {
+                        String msg = "HTTP " + response.getStatus() + " " + response.readEntity(String.class);
+                        LOGGER.error("Error occurred while importing users to realm " + realmId + ", reason: " + msg);
+                        chunks.add(new KeycloakUserImportChunk(chunk.size(), duration, Collections.emptyMap(), msg));
+                    }
+                }
+            }
+            return chunks;
+
+        } catch (UnauthorizedException ex) {
+            throw ex;
+
+        } catch (Exception ex) {
+            String msg = "Error occurred while importing users to realm " + realmId + ", reason: " + ex.getMessage();
+            LOGGER.error(msg, ex);
+            throw new RuntimeException(msg, ex);
+        }
+    }
+
+
     public boolean enableUserAccount(String realmId, String accessToken, String username) {
         try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
             UserRepresentation userRepresentation = getUserByUsername(client, realmId, username);
@@ -519,6 +704,10 @@ public class KeycloakClient {
     }
 
 
+    /**
+     * Searches users of the realm. Role mappings are not populated; use
+     * {@link #fetchRoleMappings(String, List, int)} for the users that need them.
+     */
     public List<UserRepresentation> getUsers(String accessToken, String realmId, int offset, int limit,
                                              String username, String firstName, String lastName,
                                              String email, String search) {
@@ -533,6 +722,37 @@ public class KeycloakClient {
     }
 
 
+    /**
+     * Populates the realm and client roles of the given users, fetching the role mappings of up to the given number
+     * of users concurrently over one admin session.
+     *
+     * @param realmId     The ID of the realm.
+     * @param users       The users, as returned by a search.
+     * @param parallelism The maximum number of concurrent requests.
+     * @throws RuntimeException if an error occurred while fetching the role mappings.
+     */
+    public void fetchRoleMappings(String realmId, List<UserRepresentation> users, int parallelism) {
+        if (users.isEmpty()) {
+            return;
+        }
+
+        int poolSize = Math.max(1, Math.min(parallelism, users.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+
+        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword, poolSize)) {
+            setRoles(client.realm(realmId), users, executor);
+
+        } catch (Exception ex) {
+            String msg = "Error occurred while fetching role mappings of users in realm " + realmId + ", reason: " + ex.getMessage();
+            LOGGER.error(msg, ex);
+            throw new RuntimeException(msg, ex);
+
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
     public boolean resetUserPassword(String accessToken, String realmId, String username, String newPassword) {
         try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
             UserRepresentation userRepresentation = getUserByUsername(client, realmId, username);
@@ -613,40 +833,70 @@ public class KeycloakClient {
 
     public boolean addRolesToUsers(String accessToken, String realmId, List<String> users,
                                    List<String> roles, String clientId, boolean clientLevel) {
+        return addRolesToUsers(accessToken, realmId, users, roles, clientId, clientLevel, false);
+    }
 
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
-            for (String username : users) {
-
-                UserRepresentation representation = getUserByUsername(client, realmId, username.toLowerCase());
-                ClientRepresentation clientRepresentation = client.realm(realmId).clients().findByClientId(clientId).get(0);
-                if (representation != null) {
-                    RealmResource realmResource = client.realm(realmId);
-                    UserResource resource = client.realm(realmId).users().get(representation.getId());
-                    List<RoleRepresentation> roleRepresentations = new ArrayList<>();
-                    if (clientLevel) {
-                        for (String role : roles) {
-                            RoleResource roleResource = realmResource.clients().get(clientRepresentation.getId()).roles().get(role);
-                            roleRepresentations.add(roleResource.toRepresentation());
-                        }
-                        resource.roles().clientLevel(clientRepresentation.getId()).add(roleRepresentations);
 
-                    } else {
+    /**
+     * Adds realm or client roles to the given users, updating up to the configured number of users concurrently over
+     * one admin session. The roles are looked up once for the whole batch. Users that do not exist, or are agents
+     * when only end users are requested, are skipped.
+     *
+     * @param accessToken  the access token of the caller
+     * @param realmId      the ID of the realm
+     * @param users        the usernames of the users
+     * @param roles        the names of the roles to add
+     * @param clientId     the client the roles belong to, if they are client roles
+     * @param clientLevel  true to add client roles, false to add realm roles
+     * @param endUsersOnly true to skip agents
+     * @return true once every user has been updated
+     * @throws RuntimeException listing every user that could not be updated
+     */
+    public boolean addRolesToUsers(String accessToken, String realmId, List<String> users,
+                                   List<String> roles, String clientId, boolean clientLevel, boolean endUsersOnly) {
+        if (users.isEmpty()) {
+            return true;
+        }
 
-                        for (String role : roles) {
-                            RoleResource roleResource = client.realm(realmId).roles().get(role);
-                            roleRepresentations.add(roleResource.toRepresentation());
-                        }
-                        resource.roles().realmLevel().add(roleRepresentations);
-                    }
+        int poolSize = getUserOperationPoolSize(users);
+        Map<String, String> failedUsers;
+        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword, poolSize)) {
+            RealmResource realmResource = client.realm(realmId);
+            List<RoleRepresentation> roleRepresentations = new ArrayList<>();
+            String clientUUID = null;
 
+            if (clientLevel) {
+                clientUUID = roleCache.getClientUUID(realmResource, realmId, clientId);
+                for (String role : roles) {
+                    roleRepresentations.add(roleCache.getClientRole(realmResource, realmId, clientUUID, role));
+                }
+            } else {
+                for (String role : roles) {
+                    roleRepresentations.add(roleCache.getRealmRole(realmResource, realmId, role));
                 }
             }
-            return true;
+
+            String roleClientUUID = clientUUID;
+            failedUsers = forEachUser(realmResource, users, poolSize, endUsersOnly, (representation, resource) -> {
+                if (roleClientUUID != null) {
+                    resource.roles().clientLevel(roleClientUUID).add(roleRepresentations);
+                } else {
+                    resource.roles().realmLevel().add(roleRepresentations);
+                }
+            });
+
         } catch (Exception ex) {
             String msg = "Error while adding roles to user " + ex.getMessage();
             LOGGER.error(msg, ex);
             throw new RuntimeException(msg, ex);
         }
+
+        if (!failedUsers.isEmpty()) {
+            String msg = "Error while adding roles to users " + failedUsers;
+            LOGGER.error(msg);
+            throw new RuntimeException(msg);
+        }
+        return true;
     }
 
 
@@ -660,21 +910,15 @@ public class KeycloakClient {
                 UserResource retrievedUser = client.realm(realmId).users().get(representation.getId());
 
                 if (clientLevel) {
-                    List<ClientRepresentation> clientRepresentationList =
-                            client.realm(realmId).clients().findByClientId(clientId);
+                    String clientUUID = roleCache.findClientUUID(client.realm(realmId), realmId, clientId);
 
-                    if (clientRepresentationList != null && !clientRepresentationList.isEmpty()) {
-                        ClientRepresentation clientRep = clientRepresentationList.get(0);
+                    if (clientUUID != null) {
                         List<RoleRepresentation> roleRepresentations = new ArrayList<>();
                         for (String roleName : roles) {
-                            RoleResource roleResource = client.realm(realmId).
-                                    clients().get(clientRep.getId()).roles().get(roleName);
-                            if (roleResource != null) {
-                                roleRepresentations.add(roleResource.toRepresentation());
-                            }
+                            roleRepresentations.add(roleCache.getClientRole(client.realm(realmId), realmId, clientUUID, roleName));
                         }
                         if (!roleRepresentations.isEmpty()) {
-                            retrievedUser.roles().clientLevel(clientRep.getId()).remove(roleRepresentations);
+                            retrievedUser.roles().clientLevel(clientUUID).remove(roleRepresentations);
                         }
 
 
@@ -682,10 +926,7 @@ public class KeycloakClient {
                 } else {
                     List<RoleRepresentation> roleRepresentations = new ArrayList<>();
                     for (String roleName : roles) {
-                        RoleResource roleResource = client.realm(realmId).roles().get(roleName);
-                        if (roleResource != null) {
-                            roleRepresentations.add(roleResource.toRepresentation());
-                        }
+                        roleRepresentations.add(roleCache.getRealmRole(client.realm(realmId), realmId, roleName));
                     }
                     if (!roleRepresentations.isEmpty()) {
                         retrievedUser.roles().realmLevel().remove(roleRepresentations);
@@ -708,6 +949,7 @@ public class KeycloakClient {
             if (realmResource != null) {
                 realmResource.remove();
             }
+            roleCache.invalidate(realmId);
 
         } catch (NotFoundException ex) {
             LOGGER.debug("Realm not found", ex);
@@ -771,36 +1013,57 @@ public class KeycloakClient {
      * @return
      */
     public boolean addUserAttributes(String realmId, String accessToken, Map<String, List<String>> attributeMap, List<String> users) {
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
-            RealmResource realmResource = client.realm(realmId);
-
-            for (String user : users) {
-                UserRepresentation userRepresentation = getUserByUsername(client, realmId, user.toLowerCase());
+        return addUserAttributes(realmId, accessToken, attributeMap, users, false);
+    }
 
-                if (userRepresentation != null) {
-                    UserResource resource = realmResource.users().get(userRepresentation.getId());
 
-                    Map<String, List<String>> exAtrMap = userRepresentation.getAttributes();
+    /**
+     * Adds the given attributes to the given users, updating up to the configured number of users concurrently over
+     * one session. Existing values of the given attribute keys are replaced. Users that do not exist, or are agents
+     * when only end users are requested, are skipped.
+     *
+     * @param realmId      The ID of the realm in Keycloak.
+     * @param accessToken  The access token for authentication.
+     * @param attributeMap A map containing attribute names as keys and lists of attribute values as values.
+     * @param users        A list of usernames for the users to update.
+     * @param endUsersOnly true to skip agents.
+     * @return true once every user has been updated.
+     * @throws RuntimeException listing every user that could not be updated.
+     */
+    public boolean addUserAttributes(String realmId, String accessToken, Map<String, List<String>> attributeMap,
+                                     List<String> users, boolean endUsersOnly) {
+        if (users.isEmpty()) {
+            return true;
+        }
 
-                    if (exAtrMap != null && !exAtrMap.isEmpty()) {
-                        attributeMap.keySet().forEach(key -> {
-                            exAtrMap.put(key, attributeMap.get(key));
-                        });
-                        userRepresentation.setAttributes(exAtrMap);
+        int poolSize = getUserOperationPoolSize(users);
+        Map<String, String> failedUsers;
+        try (Keycloak client = getClient(iamServerURL, realmId, accessToken, poolSize)) {
+            failedUsers = forEachUser(client.realm(realmId), users, poolSize, endUsersOnly, (userRepresentation, resource) -> {
+                Map<String, List<String>> exAtrMap = userRepresentation.getAttributes();
 
-                    } else {
-                        userRepresentation.setAttributes(attributeMap);
-                    }
+                if (exAtrMap != null && !exAtrMap.isEmpty()) {
+                    exAtrMap.putAll(attributeMap);
+                    userRepresentation.setAttributes(exAtrMap);
 
-                    resource.update(userRepresentation);
+                } else {
+                    userRepresentation.setAttributes(new HashMap<>(attributeMap));
                 }
-            }
+
+                resource.update(userRepresentation);
+            });
 
         } catch (Exception ex) {
             String msg = "Error occurred while adding user attributes in Keycloak Server, reason: " + ex.getMessage();
             LOGGER.error(msg, ex);
             throw new RuntimeException(msg, ex);
         }
+
+        if (!failedUsers.isEmpty()) {
+            String msg = "Error occurred while adding user attributes in Keycloak Server for users " + failedUsers;
+            LOGGER.error(msg);
+            throw new RuntimeException(msg);
+        }
         return true;
     }
 
@@ -816,13 +1079,33 @@ public class KeycloakClient {
      * @throws RuntimeException if an error occurs while deleting user attributes.
      */
     public boolean deleteUserAttributes(String realmId, String accessToken, Map<String, List<String>> attributeMap, List<String> users) {
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
-            RealmResource realmResource = client.realm(realmId);
+        return deleteUserAttributes(realmId, accessToken, attributeMap, users, false);
+    }
 
-            for (String user : users) {
-                UserRepresentation userRepresentation = getUserByUsername(client, realmId, user.toLowerCase());
-                UserResource resource = realmResource.users().get(userRepresentation.getId());
 
+    /**
+     * Deletes the specified attributes for the given users, updating up to the configured number of users
+     * concurrently over one session. Users that do not exist, or are agents when only end users are requested,
+     * are skipped.
+     *
+     * @param realmId      The ID of the realm in Keycloak.
+     * @param accessToken  The access token for authentication.
+     * @param attributeMap A map containing attribute names as keys and lists of attribute values to delete as values.
+     * @param users        A list of usernames for the users whose attributes need to be deleted.
+     * @param endUsersOnly true to skip agents.
+     * @return true once every user has been updated.
+     * @throws RuntimeException listing every user that could not be updated.
+     */
+    public boolean deleteUserAttributes(String realmId, String accessToken, Map<String, List<String>> attributeMap,
+                                        List<String> users, boolean endUsersOnly) {
+        if (users.isEmpty()) {
+            return true;
+        }
+
+        int poolSize = getUserOperationPoolSize(users);
+        Map<String, String> failedUsers;
+        try (Keycloak client = getClient(iamServerURL, realmId, accessToken, poolSize)) {
+            failedUsers = forEachUser(client.realm(realmId), users, poolSize, endUsersOnly, (userRepresentation, resource) -> {
                 Map<String, List<String>> exAtrMap = userRepresentation.getAttributes();
 
                 if (exAtrMap != null && !exAtrMap.isEmpty()) {
@@ -837,14 +1120,19 @@ public class KeycloakClient {
                 }
 
                 resource.update(userRepresentation);
-            }
-
+            });
 
         } catch (Exception ex) {
             String msg = "Error occurred while deleting user attributes in Keycloak Server, reason: " + ex.getMessage();
             LOGGER.error(msg, ex);
             throw new RuntimeException(msg, ex);
         }
+
+        if (!failedUsers.isEmpty()) {
+            String msg = "Error occurred while deleting user attributes in Keycloak Server for users " + failedUsers;
+            LOGGER.error(msg);
+            throw new RuntimeException(msg);
+        }
         return true;
     }
 
@@ -878,27 +1166,232 @@ public class KeycloakClient {
 
 
     /**
-     * Retrieves a list of UserRepresentation objects for all users in the specified realm.
+     * Walks through all users of the realm one page at a time, so that only a single page is held in memory.
+     * When roles are requested, the role mappings of the users in a page are fetched concurrently over one pooled
+     * session before the page is handed to the consumer.
      *
-     * @param realmId The ID of the realm from which to retrieve the users.
-     * @return A List of UserRepresentation objects containing the user details.
+     * @param realmId     The ID of the realm from which to retrieve the users.
+     * @param pageSize    The number of users fetched per request.
+     * @param withRoles   Whether to populate the realm and client roles of each user.
+     * @param parallelism The maximum number of concurrent role mapping requests.
+     * @param consumer    Receives each page of users, in order.
      * @throws RuntimeException if an error occurred while fetching the user details.
      */
-    public List<UserRepresentation> getAllUsers(String realmId) {
+    public void forEachUserPage(String realmId, int pageSize, boolean withRoles, int parallelism,
+                                Consumer<List<UserRepresentation>> consumer) {
+        forEachUserPage(realmId, 0, pageSize, withRoles, parallelism, consumer);
+    }
+
+    /**
+     * Same as {@link #forEachUserPage(String, int, boolean, int, Consumer)}, starting at the given offset so that an
+     * interrupted walk can be resumed.
+     */
+    public void forEachUserPage(String realmId, int first, int pageSize, boolean withRoles, int parallelism,
+                                Consumer<List<UserRepresentation>> consumer) {
+        int poolSize = Math.max(1, parallelism);
+        ExecutorService executor = withRoles ? Executors.newFixedThreadPool(poolSize) : null;
+
+        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword, poolSize)) {
+            RealmResource realmResource = client.realm(realmId);
+            List<UserRepresentation> page;
+
+            do {
+                page = realmResource.users().list(first, pageSize);
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                if (withRoles) {
+                    setRoles(realmResource, page, executor);
+                }
+
+                consumer.accept(page);
+                first += page.size();
+            } while (page.size() == pageSize);
+
+        } catch (Exception ex) {
+            String msg = "Error occurred while fetching users of realm " + realmId + ", reason: " + ex.getMessage();
+            LOGGER.error(msg, ex);
+            throw new RuntimeException(msg, ex);
+
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+
+    /**
+     * Collects the IDs of the users created, updated or given new role mappings since the given time, using the
+     * admin events of the realm. Users created without an admin event, e.g. through an identity provider broker at
+     * their first login or by registering themselves, are found by their creation time.
+     *
+     * @param realmId The ID of the realm.
+     * @param since   The time, in milliseconds since the epoch, after which changes are collected.
+     * @return The IDs of the changed users, or null if admin events are not enabled for the realm.
+     * @throws RuntimeException if an error occurred while fetching the admin events.
+     */
+    public Set<String> getUserIdsChangedSince(String realmId, long since) {
         try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
-            List<UserRepresentation> representations = client.realm(realmId).users().list();
-            List<UserRepresentation> representationList = new ArrayList<>();
-            if (representations != null && !representations.isEmpty()) {
-                for (UserRepresentation userRepresentation : representations) {
-                    UserRepresentation userRep = getUserByUsername(client, realmId, userRepresentation.getUsername());
-                    representationList.add(userRep);
+            RealmResource realmResource = client.realm(realmId);
+            if (!Boolean.TRUE.equals(realmResource.getRealmEventsConfig().isAdminEventsEnabled())) {
+                return null;
+            }
+
+            List<String> operationTypes = List.of("CREATE", "UPDATE", "ACTION");
+            List<String> resourceTypes = List.of("USER", "REALM_ROLE_MAPPING", "CLIENT_ROLE_MAPPING");
+            // dateFrom only has a granularity of a day and is read in the Keycloak server's time zone, so start a day
+            // early in UTC and rely on the event timestamps below for the exact cut-off
+            String dateFrom = DateTimeFormatter.ISO_LOCAL_DATE.format(Instant.ofEpochMilli(since).atZone(ZoneOffset.UTC).minusDays(1));
+            Set<String> userIds = new HashSet<>();
+
+            // Events are returned newest first
+            int first = 0;
+            List<AdminEventRepresentation> events;
+            do {
+                events = realmResource.getAdminEvents(operationTypes, null, null, null, null, null,
+                        resourceTypes, dateFrom, null, first, ADMIN_EVENTS_PAGE_SIZE);
+                for (AdminEventRepresentation event : events) {
+                    if (event.getTime() < since) {
+                        addUserIdsCreatedSince(realmResource, since, userIds);
+                        return userIds;
+                    }
+                    String[] path = event.getResourcePath() != null ? event.getResourcePath().split("/") : new String[0];
+                    if (path.length > 1 && path[0].equals("users")) {
+                        userIds.add(path[1]);
+                    }
+                }
+                first += events.size();
+            } while (events.size() == ADMIN_EVENTS_PAGE_SIZE);
+
+            addUserIdsCreatedSince(realmResource, since, userIds);
+            return userIds;
+
+        } catch (Exception ex) {
+            String msg = "Error occurred while fetching admin events of realm " + realmId + ", reason: " + ex.getMessage();
+            LOGGER.error(msg, ex);
+            throw new RuntimeException(msg, ex);
+        }
+    }
+
+
+    private void addUserIdsCreatedSince(RealmResource realmResource, long since, Set<String> userIds) {
+        int first = 0;
+        List<UserRepresentation> page;
+        do {
+            page = realmResource.users().search(null, first, ADMIN_EVENTS_PAGE_SIZE, true);
+            for (UserRepresentation user : page) {
+                if (user.getCreatedTimestamp() != null && user.getCreatedTimestamp() >= since) {
+                    userIds.add(user.getId());
+                }
+            }
+            first += page.size();
+        } while (page.size() == ADMIN_EVENTS_PAGE_SIZE);
+    }
+
+
+    /**
+     * Fetches the given users together with their realm and client roles, at most parallelism at a time over one
+     * pooled session. Users that no longer exist are left out.
+     *
+     * @param realmId     The ID of the realm.
+     * @param userIds     The IDs of the users.
+     * @param parallelism The maximum number of concurrent requests.
+     * @return The users that were found.
+     * @throws RuntimeException if an error occurred while fetching the users.
+     */
+    public List<UserRepresentation> getUsersById(String realmId, Collection<String> userIds, int parallelism) {
+        if (userIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        int poolSize = Math.max(1, Math.min(parallelism, userIds.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+
+        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword, poolSize)) {
+            RealmResource realmResource = client.realm(realmId);
+            List<Future<UserRepresentation>> futures = new ArrayList<>();
+            for (String userId : userIds) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        UserResource userResource = realmResource.users().get(userId);
+                        UserRepresentation user = userResource.toRepresentation();
+                        setRoles(user, userResource.roles().getAll());
+                        return user;
+                    } catch (NotFoundException ex) {
+                        return null;
+                    }
+                }));
+            }
+
+            List<UserRepresentation> users = new ArrayList<>();
+            for (Future<UserRepresentation> future : futures) {
+                UserRepresentation user = future.get();
+                if (user != null) {
+                    users.add(user);
                 }
             }
-            return representationList;
+            return users;
+
         } catch (Exception ex) {
-            String msg = "Error occurred while adding protocol mappers in Keycloak Server, reason: " + ex.getMessage();
+            String msg = "Error occurred while fetching users of realm " + realmId + ", reason: " + ex.getMessage();
+            LOGGER.error(msg, ex);
+            throw new RuntimeException(msg, ex);
+
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Fetches users with their role mappings by exact username, running up to the given number of requests
+     * concurrently over one admin session. Usernames that do not exist are left out.
+     *
+     * @param realmId     The ID of the realm.
+     * @param usernames   The usernames of the users.
+     * @param parallelism The maximum number of concurrent requests.
+     * @return The users that were found.
+     * @throws RuntimeException if an error occurred while fetching the users.
+     */
+    public List<UserRepresentation> getUsersByUsername(String realmId, Collection<String> usernames, int parallelism) {
+        if (usernames.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        int poolSize = Math.max(1, Math.min(parallelism, usernames.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+
+        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword, poolSize)) {
+            RealmResource realmResource = client.realm(realmId);
+            List<Future<UserRepresentation>> futures = new ArrayList<>();
+            for (String username : usernames) {
+                futures.add(executor.submit(() -> {
+                    UserRepresentation user = findUserByUsername(realmResource, username);
+                    if (user != null) {
+                        setRoles(user, realmResource.users().get(user.getId()).roles().getAll());
+                    }
+                    return user;
+                }));
+            }
+
+            List<UserRepresentation> users = new ArrayList<>();
+            for (Future<UserRepresentation> future : futures) {
+                UserRepresentation user = future.get();
+                if (user != null) {
+                    users.add(user);
+                }
+            }
+            return users;
+
+        } catch (Exception ex) {
+            String msg = "Error occurred while fetching users of realm " + realmId + ", reason: " + ex.getMessage();
             LOGGER.error(msg, ex);
             throw new RuntimeException(msg, ex);
+
+        } finally {
+            executor.shutdownNow();
         }
     }
 
@@ -929,6 +1422,7 @@ public class KeycloakClient {
                     realmResource.roles().create(representation);
                 }
             }
+            roleCache.invalidate(realmId);
 
         } catch (Exception ex) {
             String msg = "Error occurred while adding roles in Keycloak Server, reason: " + ex.getMessage();
@@ -959,6 +1453,7 @@ public class KeycloakClient {
             } else {
                 realmResource.roles().deleteRole(id);
             }
+            roleCache.invalidate(realmId);
 
         } catch (Exception ex) {
             String msg = "Error occurred while delete role" + id + " in Keycloak Server, reason: " + ex.getMessage();
@@ -1107,46 +1602,83 @@ public class KeycloakClient {
     }
 
 
+    /**
+     * Removes the external IDP links of every user in the realm. Users are read a page at a time and the links of each
+     * page are removed concurrently over one admin session; progress is logged after every page.
+     *
+     * @param realmId the ID of the realm
+     * @return true once the links of every user have been removed
+     * @throws RuntimeException listing every user whose links could not be removed
+     */
     public boolean deleteExternalIDPLinks(String realmId) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        int poolSize = Math.max(1, userOperationConcurrency);
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        Map<String, String> failedUsers = new ConcurrentHashMap<>();
+
+        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword, poolSize)) {
             RealmResource realmResource = client.realm(realmId);
-            List<UserRepresentation> userResourceList = client.realm(realmId).users().list();
-            userResourceList.forEach(user -> {
-                UserResource userResource = realmResource.users().get(user.getId());
-                List<FederatedIdentityRepresentation> federatedIdentityRepresentations =
-                        userResource.getFederatedIdentity();
-                if (federatedIdentityRepresentations != null && !federatedIdentityRepresentations.isEmpty()) {
-                    federatedIdentityRepresentations.forEach(fed -> {
-                        userResource.removeFederatedIdentity(fed.getIdentityProvider());
-                    });
+            int total = realmResource.users().count();
+            AtomicInteger removedLinks = new AtomicInteger();
+            int processed = 0;
+
+            for (int first = 0; ; first += IDP_LINKS_PAGE_SIZE) {
+                List<UserRepresentation> page = realmResource.users().list(first, IDP_LINKS_PAGE_SIZE);
+                if (page.isEmpty()) {
+                    break;
                 }
-            });
-            return true;
+
+                List<Future<?>> futures = new ArrayList<>();
+                for (UserRepresentation user : page) {
+                    futures.add(executor.submit(() -> {
+                        try {
+                            removedLinks.addAndGet(removeExternalIDPLinks(realmResource.users().get(user.getId())));
+                        } catch (Exception ex) {
+                            LOGGER.error("Error occurred while deleting external IDP links of user " + user.getUsername()
+                                    + ", reason: " + ex.getMessage());
+                            failedUsers.put(user.getUsername(), ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName());
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+
+                processed += page.size();
+                LOGGER.info("Deleted " + removedLinks.get() + " external IDP links of " + processed + "/" + total
+                        + " users in realm " + realmId);
+
+                if (page.size() < IDP_LINKS_PAGE_SIZE) {
+                    break;
+                }
+            }
 
         } catch (Exception ex) {
             String msg = "Error occurred while deleting external IDP links of realm " + realmId + ", reason " + ex.getMessage();
             LOGGER.error(msg, ex);
             throw new RuntimeException(msg, ex);
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (!failedUsers.isEmpty()) {
+            String msg = "Error occurred while deleting external IDP links of realm " + realmId + " for users " + failedUsers;
+            LOGGER.error(msg);
+            throw new RuntimeException(msg);
         }
+        return true;
     }
 
     public boolean deleteExternalIDPLinks(String realmId, List<String> users) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
-            RealmResource realmResource = client.realm(realmId);
-            List<UserRepresentation> userResourceList = client.realm(realmId).users().list();
-            userResourceList.forEach(user -> {
-                if (users.contains(user.getUsername())) {
-                    UserResource userResource = realmResource.users().get(user.getId());
-                    List<FederatedIdentityRepresentation> federatedIdentityRepresentations =
-                            userResource.getFederatedIdentity();
-                    if (federatedIdentityRepresentations != null && !federatedIdentityRepresentations.isEmpty()) {
-                        federatedIdentityRepresentations.forEach(fed -> {
-                            userResource.removeFederatedIdentity(fed.getIdentityProvider());
-                        });
-                    }
-                }
-            });
+        if (users.isEmpty()) {
             return true;
+        }
+
+        int poolSize = getUserOperationPoolSize(users);
+        Map<String, String> failedUsers;
+        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword, poolSize)) {
+            failedUsers = forEachUser(client.realm(realmId), users, poolSize, false,
+                    (user, userResource) -> removeExternalIDPLinks(userResource));
 
         } catch (Exception ex) {
             String msg = "Error occurred while deleting external IDP links of realm "
@@ -1154,6 +1686,13 @@ public class KeycloakClient {
             LOGGER.error(msg, ex);
             throw new RuntimeException(msg, ex);
         }
+
+        if (!failedUsers.isEmpty()) {
+            String msg = "Error occurred while deleting external IDP links of realm " + realmId + " for users " + failedUsers;
+            LOGGER.error(msg);
+            throw new RuntimeException(msg);
+        }
+        return true;
     }
 
 
@@ -1161,17 +1700,14 @@ public class KeycloakClient {
         List<FederatedIdentityRepresentation> arrayList = new ArrayList<>();
         try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
             RealmResource realmResource = client.realm(realmId);
-            List<UserRepresentation> userResourceList = client.realm(realmId).users().list();
-            userResourceList.forEach(user -> {
-                if (requestedUser.equals(user.getUsername())) {
-                    UserResource userResource = realmResource.users().get(user.getId());
-                    List<FederatedIdentityRepresentation> federatedIdentityRepresentations =
-                            userResource.getFederatedIdentity();
-                    if (federatedIdentityRepresentations != null && !federatedIdentityRepresentations.isEmpty()) {
-                        arrayList.addAll(federatedIdentityRepresentations);
-                    }
+            UserRepresentation user = findUserByUsername(realmResource, requestedUser);
+            if (user != null) {
+                List<FederatedIdentityRepresentation> federatedIdentityRepresentations =
+                        realmResource.users().get(user.getId()).getFederatedIdentity();
+                if (federatedIdentityRepresentations != null && !federatedIdentityRepresentations.isEmpty()) {
+                    arrayList.addAll(federatedIdentityRepresentations);
                 }
-            });
+            }
             return arrayList;
 
         } catch (Exception ex) {
@@ -1184,13 +1720,13 @@ public class KeycloakClient {
     public void addExternalIDPLinks(String realmId, List<FederatedIdentityRepresentation> representations) {
         try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
             if (representations != null && !representations.isEmpty()) {
+                RealmResource realmResource = client.realm(realmId);
                 representations.forEach(fed -> {
-                    List<UserRepresentation> userRepresentationList = client.realm(realmId).users().search(fed.getUserName());
-                    userRepresentationList.forEach(user -> {
-                        UserResource userResource = client.realm(realmId).users().get(user.getId());
+                    UserRepresentation user = findUserByUsername(realmResource, fed.getUserName());
+                    if (user != null) {
+                        UserResource userResource = realmResource.users().get(user.getId());
                         userResource.addFederatedIdentity(fed.getIdentityProvider(), fed);
-                    });
-
+                    }
                 });
             }
 
@@ -1226,10 +1762,7 @@ public class KeycloakClient {
                     if (representation.getRealmRoles() != null && !representation.getRealmRoles().isEmpty()) {
                         List<RoleRepresentation> roleRepresentation = new ArrayList<>();
                         for (String role : representation.getRealmRoles()) {
-                            RoleResource resource = client.realm(realmId).roles().get(role);
-                            if (resource != null) {
-                                roleRepresentation.add(resource.toRepresentation());
-                            }
+                            roleRepresentation.add(roleCache.getRealmRole(client.realm(realmId), realmId, role));
                         }
                         if (!roleRepresentation.isEmpty()) {
                             client.realm(realmId).groups().group(id).roles().realmLevel().add(roleRepresentation);
@@ -1239,19 +1772,14 @@ public class KeycloakClient {
 
                     if (representation.getClientRoles() != null && !representation.getClientRoles().isEmpty()) {
                         List<RoleRepresentation> clientRepresentations = new ArrayList<>();
-                        ClientRepresentation clientRepresentation =
-                                client.realm(realmId).clients().findByClientId(clientId).get(0);
+                        String clientUUID = roleCache.getClientUUID(client.realm(realmId), realmId, clientId);
                         for (String role : representation.getClientRoles().get(clientId)) {
 
-                            RoleResource resource = client.realm(realmId).clients().get(clientRepresentation.getId()).roles().get(role);
-
-                            if (resource != null) {
-                                clientRepresentations.add(resource.toRepresentation());
-                            }
+                            clientRepresentations.add(roleCache.getClientRole(client.realm(realmId), realmId, clientUUID, role));
                         }
                         if (!clientRepresentations.isEmpty()) {
                             client.realm(realmId).groups().group(id).roles().
-                                    clientLevel(clientRepresentation.getId()).add(clientRepresentations);
+                                    clientLevel(clientUUID).add(clientRepresentations);
                         }
 
                     }
@@ -1305,10 +1833,7 @@ public class KeycloakClient {
             if (groupRepresentation.getRealmRoles() != null && !groupRepresentation.getRealmRoles().isEmpty()) {
                 List<RoleRepresentation> roleRepresentation = new ArrayList<>();
                 for (String role : groupRepresentation.getRealmRoles()) {
-                    RoleResource resource = client.realm(realmId).roles().get(role);
-                    if (resource != null) {
-                        roleRepresentation.add(resource.toRepresentation());
-                    }
+                    roleRepresentation.add(roleCache.getRealmRole(client.realm(realmId), realmId, role));
                 }
                 if (!roleRepresentation.isEmpty()) {
                     client.realm(realmId).groups().group(groupRepresentation.getId()).roles().realmLevel().add(roleRepresentation);
@@ -1316,29 +1841,25 @@ public class KeycloakClient {
 
             }
 
-            ClientRepresentation clientRepresentation = client.realm(realmId).clients().findByClientId(clientId).get(0);
+            String clientUUID = roleCache.getClientUUID(client.realm(realmId), realmId, clientId);
 
             List<RoleRepresentation> exClientRoles = client.realm(realmId).groups().group(groupRepresentation.getId())
-                    .roles().clientLevel(clientRepresentation.getId()).listAll();
+                    .roles().clientLevel(clientUUID).listAll();
 
             if (exClientRoles != null && !exClientRoles.isEmpty()) {
                 client.realm(realmId).groups().group(groupRepresentation.getId())
-                        .roles().clientLevel(clientRepresentation.getId()).remove(exClientRoles);
+                        .roles().clientLevel(clientUUID).remove(exClientRoles);
             }
 
             if (groupRepresentation.getClientRoles() != null && !groupRepresentation.getClientRoles().isEmpty()) {
                 List<RoleRepresentation> clientRepresentations = new ArrayList<>();
 
                 for (String role : groupRepresentation.getClientRoles().get(clientId)) {
-                    RoleResource resource = client.realm(realmId).clients().get(clientRepresentation.getId()).roles().get(role);
-
-                    if (resource != null) {
-                        clientRepresentations.add(resource.toRepresentation());
-                    }
+                    clientRepresentations.add(roleCache.getClientRole(client.realm(realmId), realmId, clientUUID, role));
                 }
                 if (!clientRepresentations.isEmpty()) {
                     client.realm(realmId).groups().group(groupRepresentation.getId()).roles().
-                            clientLevel(clientRepresentation.getId()).add(clientRepresentations);
+                            clientLevel(clientUUID).add(clientRepresentations);
                 }
 
             }
@@ -1541,25 +2062,95 @@ public class KeycloakClient {
     }
 
 
-    private boolean isValidEndUser(Keycloak client, String realmId, String username) {
-        UserRepresentation representation = getUserByUsername(client, realmId, username);
-
+    /**
+     * Tells an end user apart from an agent using the attributes of an already fetched user, without calling the
+     * Keycloak server. Agents carry the {@link Constants#REALM_AGENT} attribute.
+     *
+     * @param representation the user, fetched with its attributes
+     * @return true if the user is an end user, false if it is an agent or null
+     */
+    public boolean isEndUser(UserRepresentation representation) {
         if (representation == null) {
             return false;
         }
 
         Map<String, List<String>> attributes = representation.getAttributes();
+        return attributes == null || !attributes.containsKey(Constants.REALM_AGENT);
+    }
 
-        if (attributes != null && !attributes.isEmpty()) {
 
-            for (String key : attributes.keySet()) {
-                if (key.equals(Constants.REALM_AGENT)) {
-                    return false;
-                }
+    private boolean isValidEndUser(Keycloak client, String realmId, String username) {
+        return isEndUser(getUserByUsername(client, realmId, username));
+    }
+
+
+    private int getUserOperationPoolSize(List<String> users) {
+        return Math.max(1, Math.min(userOperationConcurrency, users.size()));
+    }
+
+
+    /**
+     * Looks up each user by exact username and applies the operation to it, running up to poolSize users at a time.
+     * Users that do not exist, or are agents when only end users are requested, are skipped. A failure for one user
+     * does not stop the others.
+     *
+     * @return the usernames the operation failed for, mapped to the failure reason
+     */
+    private Map<String, String> forEachUser(RealmResource realmResource, List<String> users, int poolSize,
+                                            boolean endUsersOnly, BiConsumer<UserRepresentation, UserResource> operation)
+            throws InterruptedException, ExecutionException {
+        Map<String, String> failedUsers = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (String username : users) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        UserRepresentation representation = findUserByUsername(realmResource, username);
+                        if (representation == null || (endUsersOnly && !isEndUser(representation))) {
+                            return;
+                        }
+                        operation.accept(representation, realmResource.users().get(representation.getId()));
+                    } catch (Exception ex) {
+                        LOGGER.error("Error occurred while updating user " + username + ", reason: " + ex.getMessage());
+                        failedUsers.put(username, ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName());
+                    }
+                }));
+            }
 
+            for (Future<?> future : futures) {
+                future.get();
             }
+
+        } finally {
+            executor.shutdownNow();
         }
-        return true;
+        return failedUsers;
+    }
+
+
+    /**
+     * @return the number of external IDP links removed from the user
+     */
+    private int removeExternalIDPLinks(UserResource userResource) {
+        List<FederatedIdentityRepresentation> federatedIdentityRepresentations = userResource.getFederatedIdentity();
+        if (federatedIdentityRepresentations == null) {
+            return 0;
+        }
+        federatedIdentityRepresentations.forEach(fed -> userResource.removeFederatedIdentity(fed.getIdentityProvider()));
+        return federatedIdentityRepresentations.size();
+    }
+
+
+    private UserRepresentation findUserByUsername(RealmResource realmResource, String username) {
+        List<UserRepresentation> users = realmResource.users().search(username.toLowerCase(), true);
+        for (UserRepresentation user : users) {
+            if (user.getUsername().equals(username.toLowerCase())) {
+                return user;
+            }
+        }
+        return null;
     }
 
 
@@ -1572,17 +2163,111 @@ public class KeycloakClient {
     }
 
 
-    private RealmRepresentation createDefaultRoles(RealmRepresentation realmDetails) {
-        List<RoleRepresentation> defaultRoles = new ArrayList<RoleRepresentation>();
-        RoleRepresentation adminRole = new RoleRepresentation();
-        adminRole.setName("admin");
-        adminRole.setDescription("Admin role for PGA users");
-        defaultRoles.add(adminRole);
+    private Keycloak getClient(String adminUrl, String realm, String loginUsername, String password, int poolSize) {
+        return KeycloakUtils.getClient(adminUrl, realm, loginUsername, password, clientId, poolSize);
+    }
 
-        RolesRepresentation rolesRepresentation = new RolesRepresentation();
-        rolesRepresentation.setRealm(defaultRoles);
-        realmDetails.setRoles(rolesRepresentation);
-        return realmDetails;
+    private Keycloak getClient(String adminUrl, String realm, String accessToken, int poolSize) {
+        return KeycloakUtils.getClient(adminUrl, realm, accessToken, poolSize);
+    }
+
+
+    /**
+     * Looks up every realm and client role referenced by the given users once, and returns the UUID of the client
+     * the client roles belong to, or null if no client roles are referenced. Roles that do not exist are left out of
+     * the maps, so the users referring to them fail without being created.
+     */
+    private String resolveRoles(RealmResource realmResource, String clientId, List<UserRepresentation> users,
+                                Map<String, RoleRepresentation> realmRoles, Map<String, RoleRepresentation> clientRoles) {
+        Set<String> realmRoleNames = new HashSet<>();
+        Set<String> clientRoleNames = new HashSet<>();
+        for (UserRepresentation user : users) {
+            if (user.getRealmRoles() != null) {
+                realmRoleNames.addAll(user.getRealmRoles());
+            }
+            if (user.getClientRoles() != null && user.getClientRoles().get(clientId) != null) {
+                clientRoleNames.addAll(user.getClientRoles().get(clientId));
+            }
+        }
+
+        if (!realmRoleNames.isEmpty()) {
+            for (RoleRepresentation role : realmResource.roles().list()) {
+                if (realmRoleNames.contains(role.getName())) {
+                    realmRoles.put(role.getName(), role);
+                }
+            }
+        }
+
+        if (clientRoleNames.isEmpty()) {
+            return null;
+        }
+
+        String clientUUID = realmResource.clients().findByClientId(clientId).get(0).getId();
+        for (RoleRepresentation role : realmResource.clients().get(clientUUID).roles().list()) {
+            if (clientRoleNames.contains(role.getName())) {
+                clientRoles.put(role.getName(), role);
+            }
+        }
+        return clientUUID;
+    }
+
+
+    private void createUser(RealmResource realmResource, RealmResource adminRealmResource, UserRepresentation user,
+                            String clientId, String clientUUID, Map<String, RoleRepresentation> realmRoles,
+                            Map<String, RoleRepresentation> clientRoles) {
+        List<RoleRepresentation> userRealmRoles = lookupRoles(user.getRealmRoles(), realmRoles);
+        List<RoleRepresentation> userClientRoles = lookupRoles(
+                user.getClientRoles() != null ? user.getClientRoles().get(clientId) : null, clientRoles);
+
+        try (Response response = realmResource.users().create(user)) {
+            if (response.getStatus() == HttpStatus.SC_UNAUTHORIZED || response.getStatus() == HttpStatus.SC_FORBIDDEN) {
+                throw new UnauthorizedException("Reason for user account creation failure : " + response.getStatusInfo());
+
+            } else if (response.getStatus() != HttpStatus.SC_CREATED) {
+                throw new RuntimeException("Reason for user account creation failure : HTTP " + response.getStatus()
+                        + " " + response.getStatusInfo());
+            }
+
+            String userId = getCreatedId(response);
+            try {
+                RoleMappingResource roles = adminRealmResource.users().get(userId).roles();
+                if (!userRealmRoles.isEmpty()) {
+                    roles.realmLevel().add(userRealmRoles);
+                }
+                if (!userClientRoles.isEmpty()) {
+                    roles.clientLevel(clientUUID).add(userClientRoles);
+                }
+
+            } catch (RuntimeException ex) {
+                // Remove the half-created account so the user is reported as failed and can be registered again
+                try (Response deleted = adminRealmResource.users().delete(userId)) {
+                    if (deleted.getStatus() != HttpStatus.SC_NO_CONTENT) {
+                        LOGGER.error("Could not remove user " + user.getUsername() + " after role mapping failure : HTTP "
+                                + deleted.getStatus());
+                    }
+                } catch (Exception deleteEx) {
+                    LOGGER.error("Could not remove user " + user.getUsername() + " after role mapping failure, reason: "
+                            + deleteEx.getMessage(), deleteEx);
+                }
+                throw ex;
+            }
+        }
+    }
+
+
+    private List<RoleRepresentation> lookupRoles(List<String> names, Map<String, RoleRepresentation> roles) {
+        if (names == null || names.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<RoleRepresentation> representations = new ArrayList<>();
+        for (String name : names) {
+            RoleRepresentation role = roles.get(name);
+            if (role == null) {
+                throw new RuntimeException("Could not find role " + name);
+            }
+            representations.add(role);
+        }
+        return representations;
     }
 
 
@@ -1620,24 +2305,7 @@ public class KeycloakClient {
         for (UserRepresentation userRepresentation : userResourceList) {
             if (userRepresentation.getUsername().equals(username.toLowerCase())) {
                 RoleMappingResource resource = client.realm(tenantId).users().get(userRepresentation.getId()).roles();
-                MappingsRepresentation representation = resource.getAll();
-                if (representation != null && representation.getRealmMappings() != null) {
-                    List<String> roleRepresentations = new ArrayList<>();
-                    representation.getRealmMappings().forEach(t -> roleRepresentations.add(t.getName()));
-                    userRepresentation.setRealmRoles(roleRepresentations);
-                }
-                if (representation != null && representation.getClientMappings() != null) {
-                    Map<String, List<String>> roleRepresentations = new HashMap<>();
-                    representation.getClientMappings().keySet().forEach(key -> {
-                        if (representation.getClientMappings().get(key).getMappings() != null) {
-                            List<String> roleList = new ArrayList<>();
-                            representation.getClientMappings().get(key).getMappings().forEach(t -> roleList.add(t.getName()));
-                            roleRepresentations.put(key, roleList);
-                        }
-                    });
-                    userRepresentation.setClientRoles(roleRepresentations);
-                }
-
+                setRoles(userRepresentation, resource.getAll());
                 return userRepresentation;
             }
         }
@@ -1645,6 +2313,38 @@ public class KeycloakClient {
     }
 
 
+    private void setRoles(RealmResource realmResource, List<UserRepresentation> users, ExecutorService executor)
+            throws InterruptedException, ExecutionException {
+        List<Future<?>> futures = new ArrayList<>();
+        for (UserRepresentation user : users) {
+            futures.add(executor.submit(() -> setRoles(user, realmResource.users().get(user.getId()).roles().getAll())));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+
+    private void setRoles(UserRepresentation userRepresentation, MappingsRepresentation representation) {
+        if (representation != null && representation.getRealmMappings() != null) {
+            List<String> roleRepresentations = new ArrayList<>();
+            representation.getRealmMappings().forEach(t -> roleRepresentations.add(t.getName()));
+            userRepresentation.setRealmRoles(roleRepresentations);
+        }
+        if (representation != null && representation.getClientMappings() != null) {
+            Map<String, List<String>> roleRepresentations = new HashMap<>();
+            representation.getClientMappings().keySet().forEach(key -> {
+                if (representation.getClientMappings().get(key).getMappings() != null) {
+                    List<String> roleList = new ArrayList<>();
+                    representation.getClientMappings().get(key).getMappings().forEach(t -> roleList.add(t.getName()));
+                    roleRepresentations.put(key, roleList);
+                }
+            });
+            userRepresentation.setClientRoles(roleRepresentations);
+        }
+    }
+
+
     private boolean createGroup(Keycloak client, String realmId, String clientId, GroupRepresentation parentRepresentation) {
 
         if (parentRepresentation.getSubGroups() != null && !parentRepresentation.getSubGroups().isEmpty()) {
@@ -1660,10 +2360,7 @@ public class KeycloakClient {
                             if (representation.getRealmRoles() != null && !representation.getRealmRoles().isEmpty()) {
                                 List<RoleRepresentation> roleRepresentation = new ArrayList<>();
                                 for (String role : representation.getRealmRoles()) {
-                                    RoleResource resource = client.realm(realmId).roles().get(role);
-                                    if (resource != null) {
-                                        roleRepresentation.add(resource.toRepresentation());
-                                    }
+                                    roleRepresentation.add(roleCache.getRealmRole(client.realm(realmId), realmId, role));
                                 }
                                 if (!roleRepresentation.isEmpty()) {
                                     client.realm(realmId).groups().group(id).roles().realmLevel().add(roleRepresentation);
@@ -1673,18 +2370,13 @@ public class KeycloakClient {
 
                             if (representation.getClientRoles() != null && !representation.getClientRoles().isEmpty()) {
                                 List<RoleRepresentation> clientRepresentations = new ArrayList<>();
-                                ClientRepresentation clientRepresentation =
-                                        client.realm(realmId).clients().findByClientId(clientId).get(0);
+                                String clientUUID = roleCache.getClientUUID(client.realm(realmId), realmId, clientId);
                                 for (String role : representation.getClientRoles().get(clientId)) {
-                                    RoleResource resource = client.realm(realmId).clients().get(clientRepresentation.getId()).roles().get(role);
-
-                                    if (resource != null) {
-                                        clientRepresentations.add(resource.toRepresentation());
-                                    }
+                                    clientRepresentations.add(roleCache.getClientRole(client.realm(realmId), realmId, clientUUID, role));
                                 }
                                 if (!clientRepresentations.isEmpty()) {
                                     client.realm(realmId).groups().group(id).roles().
-                                            clientLevel(clientRepresentation.getId()).add(clientRepresentations);
+                                            clientLevel(clientUUID).add(clientRepresentations);
                                 }
 
                             }
@@ -1712,32 +2404,6 @@ public class KeycloakClient {
                     username.toLowerCase(), firstName, lastName, email, offset, limit);
         }
 
-        if (userResourceList != null && !userResourceList.isEmpty()) {
-            List<UserRepresentation> newList = new ArrayList<>();
-            for (UserRepresentation userRepresentation : userResourceList) {
-                RoleMappingResource resource = client.realm(tenantId).users().get(userRepresentation.getId()).roles();
-                MappingsRepresentation representation = resource.getAll();
-                if (representation != null && representation.getRealmMappings() != null) {
-                    List<String> roleRepresentations = new ArrayList<>();
-                    representation.getRealmMappings().forEach(t -> roleRepresentations.add(t.getName()));
-                    userRepresentation.setRealmRoles(roleRepresentations);
-                }
-                if (representation != null && representation.getClientMappings() != null) {
-                    Map<String, List<String>> roleRepresentations = new HashMap<>();
-                    representation.getClientMappings().keySet().forEach(key -> {
-                        if (representation.getClientMappings().get(key).getMappings() != null) {
-                            List<String> roleList = new ArrayList<>();
-                            representation.getClientMappings().get(key).getMappings().forEach(t -> roleList.add(t.getName()));
-                            roleRepresentations.put(key, roleList);
-                        }
-                    });
-                    userRepresentation.setClientRoles(roleRepresentations);
-                }
-                newList.add(userRepresentation);
-            }
-            return userResourceList;
-        }
-
         return userResourceList;
     }
 
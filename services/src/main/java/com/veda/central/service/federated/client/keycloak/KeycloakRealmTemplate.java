@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.federated.client.keycloak;
+
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.CredentialRepresentation;
+import org.keycloak.representations.idm.RealmRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.RolesRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders the complete representation of a tenant realm: the default roles, the realm admin account, the tenant
+ * client and its service account. Keycloak imports the whole representation when the realm is created, so a tenant
+ * is provisioned with a single admin call instead of creating each part and looking it up again.
+ */
+final class KeycloakRealmTemplate {
+
+    static final String ADMIN_ROLE = "admin";
+
+    private static final String REALM_MANAGEMENT_CLIENT = "realm-management";
+
+    private static final String SERVICE_ACCOUNT_PREFIX = "service-account-";
+
+    // Client roles of realm-management granted to the realm admin, i.e. every role Keycloak creates for it
+    private static final List<String> REALM_MANAGEMENT_ROLES = List.of("realm-admin", "create-client", "impersonation",
+            "manage-authorization", "manage-clients", "manage-events", "manage-identity-providers", "manage-realm",
+            "manage-users", "query-clients", "query-groups", "query-realms", "query-users", "view-authorization",
+            "view-clients", "view-events", "view-identity-providers", "view-realm", "view-users");
+
+    private static final int CLIENT_SECRET_BYTES = 24;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final String realmId;
+    private final String displayName;
+
+    private int accessTokenLifespan;
+    private int ssoSessionIdleTimeout;
+
+    private UserRepresentation admin;
+
+    private ClientRepresentation tenantClient;
+
+
+    private KeycloakRealmTemplate(String realmId, String displayName) {
+        this.realmId = realmId;
+        this.displayName = displayName;
+    }
+
+    static KeycloakRealmTemplate forRealm(String realmId, String displayName) {
+        return new KeycloakRealmTemplate(realmId, displayName);
+    }
+
+    KeycloakRealmTemplate withTokenLifespans(int accessTokenLifespan, int ssoSessionIdleTimeout) {
+        this.accessTokenLifespan = accessTokenLifespan;
+        this.ssoSessionIdleTimeout = ssoSessionIdleTimeout;
+        return this;
+    }
+
+    /**
+     * Adds the realm admin account, granted the admin realm role and every realm-management role
+     */
+    KeycloakRealmTemplate withAdmin(String username, String firstName, String lastName, String email, String password) {
+        UserRepresentation user = new UserRepresentation();
+        user.setUsername(username);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setEmail(email);
+        user.setEmailVerified(true);
+        user.setEnabled(true);
+
+        CredentialRepresentation credential = new CredentialRepresentation();
+        credential.setType(CredentialRepresentation.PASSWORD);
+        credential.setValue(password);
+        credential.setTemporary(false);
+        user.setCredentials(Collections.singletonList(credential));
+
+        user.setRealmRoles(Collections.singletonList(ADMIN_ROLE));
+        user.setClientRoles(Map.of(REALM_MANAGEMENT_CLIENT, REALM_MANAGEMENT_ROLES));
+        this.admin = user;
+        return this;
+    }
+
+    /**
+     * Adds the confidential tenant client. Its secret is generated here so it does not have to be read back from
+     * Keycloak after the import.
+     */
+    KeycloakRealmTemplate withClient(String clientName, String tenantURL, List<String> redirectUris) {
+        ClientRepresentation client = new ClientRepresentation();
+        client.setName(clientName);
+        client.setClientId(clientName);
+        client.setProtocol("openid-connect");
+        client.setStandardFlowEnabled(true);
+        client.setEnabled(true);
+        client.setAuthorizationServicesEnabled(true);
+        client.setDirectAccessGrantsEnabled(true);
+        client.setServiceAccountsEnabled(true);
+        client.setFullScopeAllowed(true);
+        client.setClientAuthenticatorType("client-secret");
+        client.setSecret(generateSecret());
+        client.setBaseUrl(tenantURL);
+
+        // Remove trailing slash from URL
+        String trimmedURL = tenantURL.endsWith("/") ? tenantURL.substring(0, tenantURL.length() - 1) : tenantURL;
+        List<String> allRedirectUris = new ArrayList<>(redirectUris);
+        allRedirectUris.add(trimmedURL);
+        client.setRedirectUris(allRedirectUris);
+        client.setWebOrigins(Collections.singletonList("+"));
+        client.setPublicClient(false);
+
+        this.tenantClient = client;
+        return this;
+    }
+
+    String getClientId() {
+        return tenantClient != null ? tenantClient.getClientId() : null;
+    }
+
+    String getClientSecret() {
+        return tenantClient != null ? tenantClient.getSecret() : null;
+    }
+
+    RealmRepresentation render() {
+        RealmRepresentation realm = new RealmRepresentation();
+        realm.setEnabled(true);
+        realm.setId(realmId);
+        realm.setDisplayName(displayName);
+        realm.setRealm(realmId);
+        // Following two settings allow duplicate email addresses
+        realm.setLoginWithEmailAllowed(false);
+        realm.setDuplicateEmailsAllowed(true);
+        realm.setAccessTokenLifespan(accessTokenLifespan);
+        realm.setSsoSessionIdleTimeout(ssoSessionIdleTimeout);
+
+        RoleRepresentation adminRole = new RoleRepresentation();
+        adminRole.setName(ADMIN_ROLE);
+        adminRole.setDescription("Admin role for PGA users");
+        RolesRepresentation roles = new RolesRepresentation();
+        roles.setRealm(Collections.singletonList(adminRole));
+        realm.setRoles(roles);
+
+        List<UserRepresentation> users = new ArrayList<>();
+        if (admin != null) {
+            users.add(admin);
+        }
+
+        if (tenantClient != null) {
+            realm.setClients(Collections.singletonList(tenantClient));
+
+            // The service account of the tenant client manages the users of the realm
+            UserRepresentation serviceAccount = new UserRepresentation();
+            serviceAccount.setUsername(SERVICE_ACCOUNT_PREFIX + tenantClient.getClientId());
+            serviceAccount.setEnabled(true);
+            serviceAccount.setServiceAccountClientId(tenantClient.getClientId());
+            serviceAccount.setClientRoles(Map.of(REALM_MANAGEMENT_CLIENT, Collections.singletonList("manage-users")));
+            users.add(serviceAccount);
+        }
+
+        if (!users.isEmpty()) {
+            realm.setUsers(users);
+        }
+        return realm;
+    }
+
+    private static String generateSecret() {
+        byte[] bytes = new byte[CLIENT_SECRET_BYTES];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.federated.client.keycloak;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+
+import javax.ws.rs.NotFoundException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Caches the client UUIDs and the realm and client role representations of each realm for a short time, so that
+ * bulk role assignments do not look the same roles up again for every user or group. Entries of a realm are
+ * dropped whenever its roles or clients change through {@link KeycloakClient}.
+ */
+class KeycloakRoleCache {
+
+    private static final String KEY_SEPARATOR = "/";
+
+    private final Cache<String, String> clientUUIDs;
+
+    private final Cache<String, RoleRepresentation> roles;
+
+    KeycloakRoleCache(Duration ttl, long maximumSize) {
+        this.clientUUIDs = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maximumSize).build();
+        this.roles = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maximumSize).build();
+    }
+
+    /**
+     * @return the UUID of the client, or null if the realm has no client with the given client id
+     */
+    String findClientUUID(RealmResource realmResource, String realmId, String clientId) {
+        return clientUUIDs.get(realmId + KEY_SEPARATOR + clientId, key -> {
+            List<ClientRepresentation> clients = realmResource.clients().findByClientId(clientId);
+            return clients == null || clients.isEmpty() ? null : clients.get(0).getId();
+        });
+    }
+
+    /**
+     * @return the UUID of the client
+     * @throws NotFoundException if the realm has no client with the given client id
+     */
+    String getClientUUID(RealmResource realmResource, String realmId, String clientId) {
+        String clientUUID = findClientUUID(realmResource, realmId, clientId);
+        if (clientUUID == null) {
+            throw new NotFoundException("Client " + clientId + " not found in realm " + realmId);
+        }
+        return clientUUID;
+    }
+
+    /**
+     * @throws NotFoundException if the realm has no role with the given name
+     */
+    RoleRepresentation getRealmRole(RealmResource realmResource, String realmId, String roleName) {
+        return roles.get(realmId + KEY_SEPARATOR + KEY_SEPARATOR + roleName,
+                key -> realmResource.roles().get(roleName).toRepresentation());
+    }
+
+    /**
+     * @throws NotFoundException if the client has no role with the given name
+     */
+    RoleRepresentation getClientRole(RealmResource realmResource, String realmId, String clientUUID, String roleName) {
+        return roles.get(realmId + KEY_SEPARATOR + clientUUID + KEY_SEPARATOR + roleName,
+                key -> realmResource.clients().get(clientUUID).roles().get(roleName).toRepresentation());
+    }
+
+    void invalidate(String realmId) {
+        String prefix = realmId + KEY_SEPARATOR;
+        clientUUIDs.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        roles.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.federated.client.keycloak;
+
+import java.util.Map;
+
+/**
+ * Represents the outcome of importing one chunk of users through the realm partial import endpoint
+ */
+public class KeycloakUserImportChunk {
+
+    private final int size;
+
+    private final long durationMillis;
+
+    private final Map<String, String> actions;
+
+    private final String error;
+
+    public KeycloakUserImportChunk(int size, long durationMillis, Map<String, String> actions, String error) {
+        this.size = size;
+        this.durationMillis = durationMillis;
+        this.actions = actions;
+        this.error = error;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * @return the imported usernames mapped to the action Keycloak took for them (ADDED, SKIPPED or OVERWRITTEN)
+     */
+    public Map<String, String> getActions() {
+        return actions;
+    }
+
+    /**
+     * @return the reason the whole chunk was rejected, or null if it was imported
+     */
+    public String getError() {
+        return error;
+    }
+}
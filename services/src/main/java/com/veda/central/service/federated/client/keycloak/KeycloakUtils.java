@@ -20,6 +20,7 @@
 package com.veda.central.service.federated.client.keycloak;
 
 import org.keycloak.admin.client.Keycloak;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
 import org.keycloak.admin.client.KeycloakBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -61,6 +62,30 @@ public class KeycloakUtils {
                 .build();
     }
 
+    /**
+     * Builds an admin client backed by a pooled connection manager, so that a single session can be shared by
+     * up to poolSize concurrent requests.
+     */
+    public static Keycloak getClient(String serverURL, String realm, String accessToken, int poolSize) {
+        return KeycloakBuilder.builder()
+                .serverUrl(serverURL)
+                .realm(realm)
+                .authorization(accessToken)
+                .resteasyClient(getPooledRestClient(poolSize))
+                .build();
+    }
+
+    public static Keycloak getClient(String serverURL, String realm, String loginUsername, String password, String clientId, int poolSize) {
+        return KeycloakBuilder.builder()
+                .serverUrl(serverURL)
+                .realm(realm)
+                .username(loginUsername)
+                .password(password)
+                .clientId(clientId)
+                .resteasyClient(getPooledRestClient(poolSize))
+                .build();
+    }
+
     private static Client getRestClient() {
         try {
             TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
@@ -80,6 +105,27 @@ public class KeycloakUtils {
         }
     }
 
+    private static Client getPooledRestClient(int poolSize) {
+        try {
+            TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            tmf.init((KeyStore) null);
+
+            SSLContext sslContext = SSLContext.getInstance(SSL_PROTOCOL);
+            sslContext.init(null, tmf.getTrustManagers(), null);
+
+            return ((ResteasyClientBuilder) ClientBuilder.newBuilder())
+                    .connectionPoolSize(poolSize)
+                    .maxPooledPerRoute(poolSize)
+                    .sslContext(sslContext)
+                    .connectTimeout(100, TimeUnit.SECONDS)
+                    .readTimeout(10, TimeUnit.SECONDS)
+                    .build();
+        } catch (Exception e) {
+            LOGGER.error("Error configuring the pooled rest client", e);
+            throw new RuntimeException("Failed to configure the pooled REST client", e);
+        }
+    }
+
     public static void initializeTrustStoreManager() throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException {
 
         TrustManagerFactory trustFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
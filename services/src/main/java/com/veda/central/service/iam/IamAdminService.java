@@ -38,6 +38,7 @@ import com.veda.central.core.iam.api.DeleteTenantRequest;
 import com.veda.central.core.iam.api.DeleteUserAttributeRequest;
 import com.veda.central.core.iam.api.DeleteUserRolesRequest;
 import com.veda.central.core.iam.api.EventPersistenceRequest;
+import com.veda.central.core.iam.api.ExistingUserPolicy;
 import com.veda.central.core.iam.api.ExternalIDPLink;
 import com.veda.central.core.iam.api.FederateIDPResponse;
 import com.veda.central.core.iam.api.FindUsersRequest;
@@ -53,6 +54,7 @@ import com.veda.central.core.iam.api.GroupRepresentation;
 import com.veda.central.core.iam.api.GroupRequest;
 import com.veda.central.core.iam.api.GroupsRequest;
 import com.veda.central.core.iam.api.GroupsResponse;
+import com.veda.central.core.iam.api.ImportChunkReport;
 import com.veda.central.core.iam.api.MapperTypes;
 import com.veda.central.core.iam.api.OperationMetadata;
 import com.veda.central.core.iam.api.RegisterUserRequest;
@@ -67,16 +69,22 @@ import com.veda.central.core.iam.api.SetUpTenantResponse;
 import com.veda.central.core.iam.api.UpdateUserProfileRequest;
 import com.veda.central.core.iam.api.UserAttribute;
 import com.veda.central.core.iam.api.UserGroupMappingRequest;
+import com.veda.central.core.iam.api.UserImportAction;
+import com.veda.central.core.iam.api.UserRegistrationStatus;
+import com.veda.central.core.iam.api.UserSearchMetrics;
 import com.veda.central.core.iam.api.UserSearchRequest;
 import com.veda.central.core.model.commons.OperationStatus;
 import com.veda.central.core.model.commons.StatusEntity;
 import com.veda.central.service.auth.TokenService;
 import com.veda.central.service.federated.client.keycloak.KeycloakClient;
 import com.veda.central.service.federated.client.keycloak.KeycloakClientSecret;
+import com.veda.central.service.federated.client.keycloak.KeycloakUserImportChunk;
 import jakarta.persistence.EntityNotFoundException;
 import org.apache.commons.lang3.StringUtils;
+import org.keycloak.representations.idm.CredentialRepresentation;
 import org.keycloak.representations.idm.EventRepresentation;
 import org.keycloak.representations.idm.FederatedIdentityRepresentation;
+import org.keycloak.representations.idm.PartialImportRepresentation;
 import org.keycloak.representations.idm.ProtocolMapperRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
 import org.keycloak.representations.idm.UserSessionRepresentation;
@@ -87,10 +95,15 @@ import org.springframework.stereotype.Service;
 
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -107,6 +120,21 @@ public class IamAdminService {
     @Value("${iam.server.url:https://auth.veda.usecustos.org/auth/}")
     private String iamServerURL;
 
+    @Value("${iam.bulk.registration.parallelism:8}")
+    private int bulkRegistrationParallelism;
+
+    @Value("${iam.bulk.import.chunk.size:500}")
+    private int bulkImportChunkSize;
+
+    @Value("${iam.users.page.size:100}")
+    private int usersPageSize;
+
+    @Value("${iam.users.roles.parallelism:8}")
+    private int rolesParallelism;
+
+    @Value("${iam.server.realm.template.enabled:true}")
+    private boolean realmTemplateEnabled;
+
     public IamAdminService(KeycloakClient keycloakClient, StatusUpdater statusUpdater, TokenService tokenService) {
         this.keycloakClient = keycloakClient;
         this.statusUpdater = statusUpdater;
@@ -118,12 +146,21 @@ public class IamAdminService {
             LOGGER.debug("Request received to setUPTenant  " + request.getTenantId());
 
             keycloakClient.deleteRealm(String.valueOf(request.getTenantId()));
-            keycloakClient.createRealm(String.valueOf(request.getTenantId()), request.getTenantName());
-            keycloakClient.createRealmAdminAccount(String.valueOf(request.getTenantId()), request.getAdminUsername(),
-                    request.getAdminFirstname(), request.getAdminLastname(), request.getAdminEmail(), request.getAdminPassword());
 
-            KeycloakClientSecret clientSecret = keycloakClient.configureClient(String.valueOf(request.getTenantId()),
-                    request.getVedaClientId(), request.getTenantURL(), request.getRedirectURIsList());
+            KeycloakClientSecret clientSecret;
+            if (realmTemplateEnabled) {
+                clientSecret = keycloakClient.createTenantRealm(String.valueOf(request.getTenantId()), request.getTenantName(),
+                        request.getAdminUsername(), request.getAdminFirstname(), request.getAdminLastname(),
+                        request.getAdminEmail(), request.getAdminPassword(), request.getVedaClientId(),
+                        request.getTenantURL(), request.getRedirectURIsList());
+            } else {
+                keycloakClient.createRealm(String.valueOf(request.getTenantId()), request.getTenantName());
+                keycloakClient.createRealmAdminAccount(String.valueOf(request.getTenantId()), request.getAdminUsername(),
+                        request.getAdminFirstname(), request.getAdminLastname(), request.getAdminEmail(), request.getAdminPassword());
+
+                clientSecret = keycloakClient.configureClient(String.valueOf(request.getTenantId()),
+                        request.getVedaClientId(), request.getTenantURL(), request.getRedirectURIsList());
+            }
 
             SetUpTenantResponse response = SetUpTenantResponse.newBuilder()
                     .setClientId(clientSecret.getClientId())
@@ -414,34 +451,43 @@ public class IamAdminService {
                     request.getUser().getLastName(),
                     request.getUser().getEmail(),
                     request.getUser().getId());
-            List<com.veda.central.core.iam.api.UserRepresentation> users = new ArrayList<>();
-            representation.forEach(r -> {
-                boolean status = keycloakClient.isValidEndUser(String.valueOf(request.getTenantId()), r.getUsername(), request.getAccessToken());
+            List<UserRepresentation> endUsers = representation.stream().filter(keycloakClient::isEndUser).toList();
+            long searchTime = System.currentTimeMillis();
 
-                if (status) {
+            if (!request.getExcludeRoles()) {
+                keycloakClient.fetchRoleMappings(String.valueOf(request.getTenantId()), endUsers, rolesParallelism);
+            }
+            long roleTime = System.currentTimeMillis();
 
-                    com.veda.central.core.iam.api.UserRepresentation user = this.getUser(r, request.getClientId());
+            List<com.veda.central.core.iam.api.UserRepresentation> users = new ArrayList<>();
+            endUsers.forEach(r -> {
+                com.veda.central.core.iam.api.UserRepresentation user = this.getUser(r, request.getClientId());
 
-                    UserSessionRepresentation sessionRepresentation = keycloakClient.getLatestSession(String.valueOf(request.getTenantId()),
-                            request.getClientId(), null, r.getUsername());
+                UserSessionRepresentation sessionRepresentation = keycloakClient.getLatestSession(String.valueOf(request.getTenantId()),
+                        request.getClientId(), null, r.getUsername());
 
-                    if (sessionRepresentation != null) {
-                        user = user.toBuilder().setLastLoginAt(sessionRepresentation.getLastAccess()).build();
-                    } else {
-                        EventRepresentation eventRepresentation = keycloakClient.getLastLoginEvent(String.valueOf(request.getTenantId()), request.getClientId(), r.getUsername());
+                if (sessionRepresentation != null) {
+                    user = user.toBuilder().setLastLoginAt(sessionRepresentation.getLastAccess()).build();
+                } else {
+                    EventRepresentation eventRepresentation = keycloakClient.getLastLoginEvent(String.valueOf(request.getTenantId()), request.getClientId(), r.getUsername());
 
-                        if (eventRepresentation != null) {
-                            user = user.toBuilder().setLastLoginAt(eventRepresentation.getTime()).build();
-                        }
+                    if (eventRepresentation != null) {
+                        user = user.toBuilder().setLastLoginAt(eventRepresentation.getTime()).build();
                     }
-                    users.add(user);
                 }
+                users.add(user);
             });
 
             long endTime = System.currentTimeMillis();
-            long total = endTime - initiationTime;
-            LOGGER.info("request received: " + initiationTime + " request end time" + endTime + " difference " + total);
-            return FindUsersResponse.newBuilder().addAllUsers(users).build();
+            UserSearchMetrics metrics = UserSearchMetrics.newBuilder()
+                    .setSearchMillis(searchTime - initiationTime)
+                    .setRoleEnrichmentMillis(roleTime - searchTime)
+                    .setLoginEnrichmentMillis(endTime - roleTime)
+                    .setTotalMillis(endTime - initiationTime)
+                    .setMatchedUsers(representation.size())
+                    .build();
+            LOGGER.info("request received: " + initiationTime + " request end time" + endTime + " difference " + metrics.getTotalMillis());
+            return FindUsersResponse.newBuilder().addAllUsers(users).setMetrics(metrics).build();
 
         } catch (Exception ex) {
             String msg = "Error occurred during getUsers" + ex;
@@ -650,7 +696,7 @@ public class IamAdminService {
             LOGGER.debug("Calling getOperationMetadata API for traceId " + request.getTraceId());
 
             List<OperationMetadata> metadata = new ArrayList<>();
-            List<StatusEntity> entities = statusUpdater.getOperationStatus(request.getTraceId());
+            List<StatusEntity> entities = statusUpdater.getOperationStatus(request.getTraceId(), request.getOffset(), request.getLimit());
             if (entities != null && !entities.isEmpty()) {
                 metadata = entities.stream()
                         .map(this::convertFromEntity)
@@ -688,92 +734,200 @@ public class IamAdminService {
         try {
             LOGGER.debug("Request received to registerMultipleUsers for " + request.getTenantId());
 
-            List<com.veda.central.core.iam.api.UserRepresentation> userRepresentations = request.getUsersList();
-            List<com.veda.central.core.iam.api.UserRepresentation> failedList = new ArrayList<>();
-
-            for (com.veda.central.core.iam.api.UserRepresentation userRepresentation : userRepresentations) {
-                try {
-                    keycloakClient.createUser(String.valueOf(request.getTenantId()),
-                            userRepresentation.getUsername(),
-                            userRepresentation.getPassword(),
-                            userRepresentation.getFirstName(),
-                            userRepresentation.getLastName(),
-                            userRepresentation.getEmail(),
-                            userRepresentation.getTemporaryPassword(),
-                            request.getAccessToken());
-
-                    keycloakClient.enableUserAccount(String.valueOf(request.getTenantId()),
-                            request.getAccessToken(), userRepresentation.getUsername().toLowerCase());
-                    List<String> userList = new ArrayList<>();
-                    userList.add(userRepresentation.getUsername());
-
-                    if (!userRepresentation.getRealmRolesList().isEmpty()) {
-                        keycloakClient.addRolesToUsers(request.getAccessToken(), String.valueOf(request.getTenantId()), userList, userRepresentation.getRealmRolesList(),
-                                request.getClientId(), false);
-                    }
-                    if (!userRepresentation.getClientRolesList().isEmpty()) {
-                        keycloakClient.addRolesToUsers(request.getAccessToken(), String.valueOf(request.getTenantId()), userList, userRepresentation.getClientRolesList(),
-                                request.getClientId(), true);
-                    }
+            List<UserRepresentation> representations = new ArrayList<>();
+            for (com.veda.central.core.iam.api.UserRepresentation userRepresentation : request.getUsersList()) {
+                representations.add(createUserRepresentation(userRepresentation, request.getClientId()));
+            }
 
-                    if (!userRepresentation.getAttributesList().isEmpty()) {
+            if (request.getPartialImport()) {
+                return importUsers(request, representations);
+            }
 
-                        Map<String, List<String>> map = new HashMap<>();
-                        for (UserAttribute attribute : userRepresentation.getAttributesList()) {
+            Map<String, String> failedUsers = keycloakClient.createUsers(String.valueOf(request.getTenantId()),
+                    request.getAccessToken(), request.getClientId(), representations, bulkRegistrationParallelism);
 
-                            if (attribute.getKey().equals(Constants.REALM_AGENT)) {
-                                // Constants.REALM_AGENT cannot be used as a valid attribute
-                                continue;
-                            }
-                            map.put(attribute.getKey(), attribute.getValuesList());
-                        }
+            RegisterUsersResponse.Builder builder = RegisterUsersResponse.newBuilder();
+            for (com.veda.central.core.iam.api.UserRepresentation userRepresentation : request.getUsersList()) {
+                String reason = failedUsers.get(userRepresentation.getUsername().toLowerCase());
+                UserRegistrationStatus.Builder status = UserRegistrationStatus.newBuilder()
+                        .setUsername(userRepresentation.getUsername())
+                        .setRegistered(reason == null);
+                if (reason != null) {
+                    status.setMessage(reason);
+                    builder.addFailedUsers(userRepresentation);
+                } else {
+                    status.setAction(UserImportAction.ADDED);
+                }
+                builder.addResults(status);
+            }
 
-                        keycloakClient.addUserAttributes(String.valueOf(request.getTenantId()), request.getAccessToken(), map, userList);
-                    }
+            statusUpdater.updateStatus(IAMOperations.REGISTER_ENABLE_USERS.name(),
+                    failedUsers.isEmpty() ? OperationStatus.SUCCESS : OperationStatus.FAILED,
+                    request.getTenantId(), request.getPerformedBy());
 
-                } catch (UnauthorizedException ex) {
-                    String msg = " Error occurred while adding user " + userRepresentation.getUsername() +
-                            " to realm" + request.getTenantId();
-                    LOGGER.error(msg);
-                    throw new RuntimeException(msg, ex);
+            return builder.setAllUseresRegistered(failedUsers.isEmpty()).build();
 
-                } catch (Exception ex) {
-                    if (ex.getMessage().contains("Unauthorized")) {
-                        throw new RuntimeException("Unauthorized request", ex);
-                    }
+        } catch (UnauthorizedException ex) {
+            statusUpdater.updateStatus(IAMOperations.REGISTER_ENABLE_USERS.name(), OperationStatus.FAILED, request.getTenantId(), request.getPerformedBy());
+            String msg = " Error occurred while adding users to realm " + request.getTenantId();
+            LOGGER.error(msg);
+            throw new RuntimeException("Unauthorized request", ex);
 
-                    LOGGER.error(" Error occurred while adding user " + userRepresentation.getUsername() + " to realm" + request.getTenantId());
-                    failedList.add(userRepresentation);
+        } catch (Exception ex) {
+            statusUpdater.updateStatus(IAMOperations.REGISTER_ENABLE_USERS.name(), OperationStatus.FAILED, request.getTenantId(), String.valueOf(request.getTenantId()));
+            String msg = " Register  multiple users  failed for " + request.getTenantId();
+            throw new RuntimeException(msg, ex);
+        }
+    }
+
+    /**
+     * Registers the users through the realm partial import endpoint in chunks of the requested size, reporting the
+     * outcome of every user and the throughput of every chunk. Users skipped because they already exist count as
+     * registered.
+     */
+    private RegisterUsersResponse importUsers(RegisterUsersRequest request, List<UserRepresentation> representations) {
+        int chunkSize = request.getChunkSize() > 0 ? request.getChunkSize() : bulkImportChunkSize;
+        PartialImportRepresentation.Policy policy = toImportPolicy(request.getIfUserExists());
+
+        List<KeycloakUserImportChunk> chunks = keycloakClient.importUsers(String.valueOf(request.getTenantId()),
+                request.getAccessToken(), representations, chunkSize, policy);
+
+        RegisterUsersResponse.Builder builder = RegisterUsersResponse.newBuilder();
+        Map<String, String> failedUsers = new HashMap<>();
+        Map<String, String> actions = new HashMap<>();
+        int offset = 0;
+
+        for (int i = 0; i < chunks.size(); i++) {
+            KeycloakUserImportChunk chunk = chunks.get(i);
+            Map<String, Long> counts = chunk.getActions().values().stream()
+                    .collect(Collectors.groupingBy(action -> action, Collectors.counting()));
+            double usersPerSecond = chunk.getDurationMillis() > 0 ? chunk.getSize() * 1000.0 / chunk.getDurationMillis() : chunk.getSize();
+
+            ImportChunkReport.Builder report = ImportChunkReport.newBuilder()
+                    .setChunk(i)
+                    .setUsers(chunk.getSize())
+                    .setAdded(counts.getOrDefault("ADDED", 0L).intValue())
+                    .setSkipped(counts.getOrDefault("SKIPPED", 0L).intValue())
+                    .setOverwritten(counts.getOrDefault("OVERWRITTEN", 0L).intValue())
+                    .setDurationMillis(chunk.getDurationMillis())
+                    .setUsersPerSecond(usersPerSecond);
+            if (chunk.getError() != null) {
+                report.setError(chunk.getError());
+            }
+            builder.addChunks(report);
+            actions.putAll(chunk.getActions());
+            LOGGER.info("Imported chunk " + i + " of " + chunk.getSize() + " users to realm " + request.getTenantId() +
+                    " in " + chunk.getDurationMillis() + " ms (" + Math.round(usersPerSecond) + " users/s)");
+
+            for (UserRepresentation user : representations.subList(offset, offset + chunk.getSize())) {
+                if (chunk.getError() != null) {
+                    failedUsers.put(user.getUsername(), chunk.getError());
+                } else if (!chunk.getActions().containsKey(user.getUsername())) {
+                    failedUsers.put(user.getUsername(), "User was not imported");
                 }
             }
+            offset += chunk.getSize();
+        }
 
-            if (failedList.isEmpty()) {
-                statusUpdater.updateStatus(IAMOperations.REGISTER_ENABLE_USERS.name(), OperationStatus.FAILED, request.getTenantId(), request.getPerformedBy());
+        for (com.veda.central.core.iam.api.UserRepresentation userRepresentation : request.getUsersList()) {
+            String username = userRepresentation.getUsername().toLowerCase();
+            String reason = failedUsers.get(username);
+            UserRegistrationStatus.Builder status = UserRegistrationStatus.newBuilder()
+                    .setUsername(userRepresentation.getUsername())
+                    .setRegistered(reason == null);
+            if (reason != null) {
+                status.setMessage(reason);
+                builder.addFailedUsers(userRepresentation);
+            } else {
+                status.setAction(toImportAction(actions.get(username)));
             }
+            builder.addResults(status);
+        }
 
-            return RegisterUsersResponse.newBuilder().setAllUseresRegistered(failedList.isEmpty()).addAllFailedUsers(failedList).build();
+        statusUpdater.updateStatus(IAMOperations.REGISTER_ENABLE_USERS.name(),
+                failedUsers.isEmpty() ? OperationStatus.SUCCESS : OperationStatus.FAILED,
+                request.getTenantId(), request.getPerformedBy());
 
-        } catch (Exception ex) {
-            statusUpdater.updateStatus(IAMOperations.REGISTER_ENABLE_USERS.name(), OperationStatus.FAILED, request.getTenantId(), String.valueOf(request.getTenantId()));
-            String msg = " Register  multiple users  failed for " + request.getTenantId();
-            throw new RuntimeException(msg, ex);
+        return builder.setAllUseresRegistered(failedUsers.isEmpty()).build();
+    }
+
+    private PartialImportRepresentation.Policy toImportPolicy(ExistingUserPolicy policy) {
+        switch (policy) {
+            case SKIP:
+                return PartialImportRepresentation.Policy.SKIP;
+            case OVERWRITE:
+                return PartialImportRepresentation.Policy.OVERWRITE;
+            case FAIL:
+                return PartialImportRepresentation.Policy.FAIL;
+            default:
+                throw new IllegalArgumentException("Unsupported if_user_exists policy " + policy);
         }
     }
 
+    private UserImportAction toImportAction(String action) {
+        if (action == null) {
+            return UserImportAction.NOT_IMPORTED;
+        }
+        switch (action) {
+            case "ADDED":
+                return UserImportAction.ADDED;
+            case "SKIPPED":
+                return UserImportAction.SKIPPED;
+            case "OVERWRITTEN":
+                return UserImportAction.OVERWRITTEN;
+            default:
+                return UserImportAction.NOT_IMPORTED;
+        }
+    }
+
+    /**
+     * Builds the full Keycloak representation of a user so that it can be created, enabled and given its password
+     * and attributes in one request.
+     */
+    private UserRepresentation createUserRepresentation(com.veda.central.core.iam.api.UserRepresentation userRepresentation,
+                                                        String clientId) {
+        UserRepresentation user = new UserRepresentation();
+        user.setUsername(userRepresentation.getUsername().toLowerCase());
+        user.setFirstName(userRepresentation.getFirstName());
+        user.setLastName(userRepresentation.getLastName());
+        user.setEmail(userRepresentation.getEmail());
+        user.setEnabled(true);
+
+        CredentialRepresentation credential = new CredentialRepresentation();
+        credential.setType(CredentialRepresentation.PASSWORD);
+        credential.setValue(userRepresentation.getPassword());
+        credential.setTemporary(userRepresentation.getTemporaryPassword());
+        user.setCredentials(Collections.singletonList(credential));
+
+        Map<String, List<String>> attributes = new HashMap<>();
+        for (UserAttribute attribute : userRepresentation.getAttributesList()) {
+            if (attribute.getKey().equals(Constants.REALM_AGENT)) {
+                // Constants.REALM_AGENT cannot be used as a valid attribute
+                continue;
+            }
+            attributes.put(attribute.getKey(), new ArrayList<>(attribute.getValuesList()));
+        }
+        if (!attributes.isEmpty()) {
+            user.setAttributes(attributes);
+        }
+
+        if (!userRepresentation.getRealmRolesList().isEmpty()) {
+            user.setRealmRoles(new ArrayList<>(userRepresentation.getRealmRolesList()));
+        }
+        if (!userRepresentation.getClientRolesList().isEmpty()) {
+            Map<String, List<String>> clientRoles = new HashMap<>();
+            clientRoles.put(clientId, new ArrayList<>(userRepresentation.getClientRolesList()));
+            user.setClientRoles(clientRoles);
+        }
+        return user;
+    }
+
     public com.veda.central.core.iam.api.OperationStatus addRolesToUsers(AddUserRolesRequest request) {
         try {
             LOGGER.debug("Request received to addRolesToUsers for " + request.getTenantId());
 
-            List<String> validUserNames = new ArrayList<>();
-
-            for (String username : request.getUsernamesList()) {
-                if (keycloakClient.isValidEndUser(String.valueOf(request.getTenantId()), username)) {
-                    validUserNames.add(username);
-                }
-            }
-
             keycloakClient.addRolesToUsers(request.getAccessToken(), String.valueOf(request.getTenantId()),
-                    validUserNames, request.getRolesList(), request.getClientId(), request.getClientLevel());
+                    request.getUsernamesList(), request.getRolesList(), request.getClientId(), request.getClientLevel(), true);
             statusUpdater.updateStatus(IAMOperations.ADD_ROLES_TO_USERS.name(), OperationStatus.SUCCESS,
                     request.getTenantId(), request.getPerformedBy());
 
@@ -978,13 +1132,6 @@ public class IamAdminService {
             LOGGER.debug("Request received to addUserAttributes " + request.getTenantId());
 
             List<UserAttribute> attributes = request.getAttributesList();
-            List<String> validUserNames = new ArrayList<>();
-
-            for (String username : request.getUsersList()) {
-                if (keycloakClient.isValidEndUser(String.valueOf(request.getTenantId()), username, request.getAccessToken())) {
-                    validUserNames.add(username);
-                }
-            }
 
             Map<String, List<String>> attributeMap = new HashMap<>();
             for (UserAttribute attribute : attributes) {
@@ -996,7 +1143,8 @@ public class IamAdminService {
                 attributeMap.put(attribute.getKey(), attribute.getValuesList());
             }
 
-            keycloakClient.addUserAttributes(String.valueOf(request.getTenantId()), request.getAccessToken(), attributeMap, validUserNames);
+            keycloakClient.addUserAttributes(String.valueOf(request.getTenantId()), request.getAccessToken(), attributeMap,
+                    request.getUsersList(), true);
 
             statusUpdater.updateStatus(IAMOperations.ADD_USER_ATTRIBUTE.name(),
                     OperationStatus.SUCCESS,
@@ -1022,13 +1170,6 @@ public class IamAdminService {
         try {
             LOGGER.debug("Request received to delete user attributes " + request.getTenantId());
 
-            List<String> validUserNames = new ArrayList<>();
-            for (String username : request.getUsersList()) {
-                if (keycloakClient.isValidEndUser(String.valueOf(request.getTenantId()), username, request.getAccessToken())) {
-                    validUserNames.add(username);
-                }
-            }
-
             List<UserAttribute> attributes = request.getAttributesList();
 
             Map<String, List<String>> attributeMap = new HashMap<>();
@@ -1036,7 +1177,8 @@ public class IamAdminService {
                 attributeMap.put(attribute.getKey(), attribute.getValuesList());
             }
 
-            keycloakClient.deleteUserAttributes(String.valueOf(request.getTenantId()), request.getAccessToken(), attributeMap, validUserNames);
+            keycloakClient.deleteUserAttributes(String.valueOf(request.getTenantId()), request.getAccessToken(), attributeMap,
+                    request.getUsersList(), true);
             statusUpdater.updateStatus(IAMOperations.DELETE_USER_ATTRIBUTES.name(), OperationStatus.SUCCESS,
                     request.getTenantId(), request.getPerformedBy());
 
@@ -1712,38 +1854,29 @@ public class IamAdminService {
         try {
             LOGGER.debug("Request received to getAllResources for tenant " + request.getTenantId());
 
-            List<UserRepresentation> representations = keycloakClient.getAllUsers(String.valueOf(request.getTenantId()));
-            GetAllResourcesResponse resourcesResponse = GetAllResourcesResponse.newBuilder().build();
-            if (!representations.isEmpty()) {
-                if (request.getResourceType().name().equals(ResourceTypes.USER.name())) {
-                    List<com.veda.central.core.iam.api.UserRepresentation> users = new ArrayList<>();
-                    for (UserRepresentation userRepresentation : representations) {
-                        boolean validationStatus = keycloakClient.isValidEndUser(String.valueOf(request.getTenantId()), userRepresentation.getUsername());
-                        if (validationStatus) {
-                            users.add(getUser(userRepresentation, request.getClientId()));
-                        }
-                    }
-
-                    return resourcesResponse.toBuilder().addAllUsers(users).build();
-
-                } else {
-                    List<Agent> agents = new ArrayList<>();
-                    for (UserRepresentation userRepresentation : representations) {
-                        boolean validationStatus = keycloakClient.isValidEndUser(String.valueOf(request.getTenantId()),
-                                userRepresentation.getUsername());
-                        if (!validationStatus) {
-                            agents.add(getAgent(userRepresentation));
-                        }
+            String realmId = String.valueOf(request.getTenantId());
+            boolean endUsers = request.getResourceType().name().equals(ResourceTypes.USER.name());
+            GetAllResourcesResponse.Builder builder = GetAllResourcesResponse.newBuilder();
+            AtomicInteger count = new AtomicInteger();
+
+            keycloakClient.forEachUserPage(realmId, usersPageSize, true, rolesParallelism, page -> {
+                count.addAndGet(page.size());
+                for (UserRepresentation userRepresentation : page) {
+                    boolean validationStatus = keycloakClient.isEndUser(userRepresentation);
+                    if (endUsers && validationStatus) {
+                        builder.addUsers(getUser(userRepresentation, request.getClientId()));
+                    } else if (!endUsers && !validationStatus) {
+                        builder.addAgents(getAgent(userRepresentation));
                     }
-                    return resourcesResponse.toBuilder().addAllAgents(agents).build();
                 }
+            });
 
-            } else {
+            if (count.get() == 0) {
                 String msg = " Empty resources";
                 LOGGER.error(msg);
                 throw new RuntimeException(msg);
             }
-
+            return builder.build();
 
         } catch (Exception ex) {
             String msg = " Get all resources failed";
@@ -1756,6 +1889,73 @@ public class IamAdminService {
         }
     }
 
+    /**
+     * Streams the end users of a tenant, with their roles, one page at a time.
+     *
+     * @param tenantId the tenant id
+     * @param clientId the client whose roles are reported as client roles
+     * @param consumer receives each page of end users, in order
+     */
+    public void forEachEndUserPage(long tenantId, String clientId,
+                                   Consumer<List<com.veda.central.core.iam.api.UserRepresentation>> consumer) {
+        forEachEndUserPage(tenantId, clientId, 0, (users, read) -> consumer.accept(users));
+    }
+
+    /**
+     * Streams the end users of a tenant, with their roles, one page at a time starting at the given offset.
+     *
+     * @param tenantId the tenant id
+     * @param clientId the client whose roles are reported as client roles
+     * @param first    the offset of the first user to read
+     * @param consumer receives each page of end users, along with the number of users read from Keycloak for it
+     */
+    public void forEachEndUserPage(long tenantId, String clientId, int first,
+                                   BiConsumer<List<com.veda.central.core.iam.api.UserRepresentation>, Integer> consumer) {
+        String realmId = String.valueOf(tenantId);
+        keycloakClient.forEachUserPage(realmId, first, usersPageSize, true, rolesParallelism,
+                page -> consumer.accept(getEndUsers(page, clientId), page.size()));
+    }
+
+    /**
+     * Fetches the end users of a tenant that were created or changed since the given time.
+     *
+     * @param tenantId the tenant id
+     * @param clientId the client whose roles are reported as client roles
+     * @param since    the time, in milliseconds since the epoch, after which changes are collected
+     * @return the changed end users, or null if changes cannot be tracked because admin events are disabled
+     */
+    public List<com.veda.central.core.iam.api.UserRepresentation> getEndUsersChangedSince(long tenantId, String clientId, long since) {
+        String realmId = String.valueOf(tenantId);
+        Set<String> userIds = keycloakClient.getUserIdsChangedSince(realmId, since);
+        if (userIds == null) {
+            return null;
+        }
+        return getEndUsers(keycloakClient.getUsersById(realmId, userIds, rolesParallelism), clientId);
+    }
+
+    /**
+     * Fetches the given end users of a tenant concurrently. Usernames that do not exist or belong to agents are
+     * left out.
+     *
+     * @param tenantId  the tenant id
+     * @param clientId  the client whose roles are reported as client roles
+     * @param usernames the usernames of the users
+     * @return the end users that were found
+     */
+    public List<com.veda.central.core.iam.api.UserRepresentation> getEndUsers(long tenantId, String clientId, List<String> usernames) {
+        return getEndUsers(keycloakClient.getUsersByUsername(String.valueOf(tenantId), usernames, rolesParallelism), clientId);
+    }
+
+    private List<com.veda.central.core.iam.api.UserRepresentation> getEndUsers(List<UserRepresentation> representations, String clientId) {
+        List<com.veda.central.core.iam.api.UserRepresentation> users = new ArrayList<>();
+        for (UserRepresentation userRepresentation : representations) {
+            if (keycloakClient.isEndUser(userRepresentation)) {
+                users.add(getUser(userRepresentation, clientId));
+            }
+        }
+        return users;
+    }
+
     public String getIamServerURL() {
         return iamServerURL;
     }
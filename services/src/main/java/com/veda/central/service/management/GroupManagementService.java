@@ -299,6 +299,20 @@ public class GroupManagementService {
         }
     }
 
+    public com.veda.central.core.user.profile.api.Status isTransitiveGroupMember(GroupMembership request) {
+        try {
+            LOGGER.debug("Request received to isTransitiveGroupMember for  user  "
+                    + request.getUsername() + " of tenant " + request.getTenantId());
+
+            return userProfileService.isTransitiveGroupMember(request);
+
+        } catch (Exception ex) {
+            String msg = "Error occurred at isTransitiveGroupMember " + ex.getMessage();
+            LOGGER.error(msg, ex);
+            throw new InternalServerException(msg, ex);
+        }
+    }
+
     public com.veda.central.core.user.profile.api.Status addGroupMembershipType(UserGroupMembershipTypeRequest request) {
         try {
             LOGGER.debug("Request received to addGroupMembershipType for  tenant " + request.getTenantId() + ", type " + request.getType());
@@ -23,12 +23,16 @@ import com.veda.central.core.credential.store.api.CredentialMetadata;
 import com.veda.central.core.credential.store.api.GetCredentialRequest;
 import com.veda.central.core.credential.store.api.Type;
 import com.veda.central.core.federated.authentication.api.ClientMetadata;
+import com.veda.central.core.federated.authentication.api.DeleteClientRequest;
 import com.veda.central.core.federated.authentication.api.RegisterClientResponse;
 import com.veda.central.core.iam.api.ConfigureFederateIDPRequest;
 import com.veda.central.core.iam.api.FederatedIDPs;
 import com.veda.central.core.iam.api.SetUpTenantRequest;
 import com.veda.central.core.iam.api.SetUpTenantResponse;
+import com.veda.central.core.task.ServiceChainExecutor;
 import com.veda.central.core.task.ServiceException;
+import com.veda.central.core.task.ServiceGraph;
+import com.veda.central.core.task.StepJournal;
 import com.veda.central.core.task.ServiceTaskImpl;
 import com.veda.central.core.tenant.profile.api.GetTenantRequest;
 import com.veda.central.core.tenant.profile.api.GetTenantResponse;
@@ -44,17 +48,33 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Provisions an approved tenant. Prototype scoped since a chain sets its callback and next task on the instance.
+ */
 @Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class TenantActivationTask<T, U> extends ServiceTaskImpl<T, U> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TenantActivationTask.class);
 
+    private static final String READ_VEDA_CREDENTIAL = "READ_VEDA_CREDENTIAL";
+    private static final String SET_UP_IAM_TENANT = "SET_UP_IAM_TENANT";
+    private static final String UPDATE_IAM_TENANT = "UPDATE_IAM_TENANT";
+    private static final String READ_CILOGON_CREDENTIAL = "READ_CILOGON_CREDENTIAL";
+    private static final String REGISTER_CILOGON_CLIENT = "REGISTER_CILOGON_CLIENT";
+    private static final String CONFIGURE_FEDERATED_IDP = "CONFIGURE_FEDERATED_IDP";
+    private static final String UPDATE_TENANT_STATUS = "UPDATE_TENANT_STATUS";
+
     private final IamAdminService iamAdminService;
 
     private final FederatedAuthenticationService federatedAuthentication;
@@ -63,15 +83,19 @@ public class TenantActivationTask<T, U> extends ServiceTaskImpl<T, U> {
 
     private final TenantProfileService tenantProfileService;
 
+    private final ServiceChainExecutor serviceChainExecutor;
+
     @Value("${spring.profiles.active}")
     private String activeProfile;
 
 
-    public TenantActivationTask(IamAdminService iamAdminService, FederatedAuthenticationService federatedAuthentication, CredentialStoreService credentialStoreService, TenantProfileService tenantProfileService) {
+    public TenantActivationTask(IamAdminService iamAdminService, FederatedAuthenticationService federatedAuthentication, CredentialStoreService credentialStoreService,
+                                TenantProfileService tenantProfileService, ServiceChainExecutor serviceChainExecutor) {
         this.iamAdminService = iamAdminService;
         this.federatedAuthentication = federatedAuthentication;
         this.credentialStoreService = credentialStoreService;
         this.tenantProfileService = tenantProfileService;
+        this.serviceChainExecutor = serviceChainExecutor;
     }
 
 
@@ -109,11 +133,16 @@ public class TenantActivationTask<T, U> extends ServiceTaskImpl<T, U> {
                                 .build();
                         CredentialMetadata iamMetadata = credentialStoreService.getCredential(iamClientRequest);
 
+                        StepJournal journal = serviceChainExecutor.currentJournal();
+
+                        // A resumed activation that already started setting up the realm keeps running as a new
+                        // tenant set up, even though the IAM credential may have been stored by then
                         UpdateStatusResponse response;
-                        if (iamMetadata == null || iamMetadata.getId() == null || StringUtils.isBlank(iamMetadata.getId())) {
-                            response = this.activateTenant(newTenant, Constants.SYSTEM, false);
+                        if (journal.isRecorded(SET_UP_IAM_TENANT) || iamMetadata == null || iamMetadata.getId() == null
+                                || StringUtils.isBlank(iamMetadata.getId())) {
+                            response = this.activateTenant(newTenant, Constants.SYSTEM, false, journal);
                         } else {
-                            response = this.activateTenant(newTenant, Constants.SYSTEM, true);
+                            response = this.activateTenant(newTenant, Constants.SYSTEM, true, journal);
                         }
 
                         invokeNextTask((U) response);
@@ -142,12 +171,138 @@ public class TenantActivationTask<T, U> extends ServiceTaskImpl<T, U> {
 
 
     public UpdateStatusResponse activateTenant(Tenant tenant, String performedBy, boolean update) {
-        GetCredentialRequest getCreRe = GetCredentialRequest.newBuilder()
-                .setOwnerId(tenant.getTenantId())
-                .setType(Type.VEDA)
+        return activateTenant(tenant, performedBy, update, StepJournal.NONE);
+    }
+
+    /**
+     * Provisions the tenant as a graph of steps. The VEDA credential read and the IAM realm set up run alongside the
+     * CILogon credential read and client registration; the federated IDP is configured once both branches are done.
+     * When the realm is not set up, a CILogon client registered alongside it is deleted again, so that a cancelled
+     * tenant does not leave a client behind.
+     * <p>
+     * Steps that create external state are journaled and run once. Each of them stores what it created in the
+     * credential store before completing, so a resumed activation never needs the output of an earlier attempt.
+     */
+    public UpdateStatusResponse activateTenant(Tenant tenant, String performedBy, boolean update, StepJournal journal) {
+        // skip CILOGON client creation for local development
+        boolean registerCILogonClient = !update && !activeProfile.equalsIgnoreCase("local");
+        String iamStep = update ? UPDATE_IAM_TENANT : SET_UP_IAM_TENANT;
+        AtomicBoolean realmReady = new AtomicBoolean(false);
+        AtomicReference<String> registeredClientId = new AtomicReference<>();
+
+        ServiceGraph graph = ServiceGraph.newBuilder("Tenant activation of " + tenant.getTenantId())
+                .step(READ_VEDA_CREDENTIAL, results -> credentialStoreService.getCredential(GetCredentialRequest.newBuilder()
+                        .setOwnerId(tenant.getTenantId())
+                        .setType(Type.VEDA)
+                        .build()))
+                // Setting up the realm recreates it from scratch, so the step can be repeated until the IAM
+                // credential has been stored
+                .stepOnce(iamStep, results -> {
+                    SetUpTenantResponse iamResponse = setUpIamTenant(tenant,
+                            results.get(READ_VEDA_CREDENTIAL, CredentialMetadata.class), update);
+                    credentialStoreService.putCredential(CredentialMetadata
+                            .newBuilder()
+                            .setId(iamResponse.getClientId())
+                            .setSecret(iamResponse.getClientSecret())
+                            .setOwnerId(tenant.getTenantId())
+                            .setType(Type.IAM)
+                            .build());
+                    realmReady.set(true);
+                    return null;
+                }, READ_VEDA_CREDENTIAL)
+                .step(READ_CILOGON_CREDENTIAL, results -> credentialStoreService.getCredential(GetCredentialRequest.newBuilder()
+                        .setOwnerId(tenant.getTenantId())
+                        .setType(Type.CILOGON)
+                        .build()))
+                .stepOnce(REGISTER_CILOGON_CLIENT, results -> {
+                    if (!registerCILogonClient) {
+                        return null;
+                    }
+                    CredentialMetadata creMeta = results.get(READ_CILOGON_CREDENTIAL, CredentialMetadata.class);
+                    RegisterClientResponse registerClientResponse = federatedAuthentication.addClient(buildClientMetadata(tenant, performedBy, creMeta));
+                    registeredClientId.set(registerClientResponse.getClientId());
+                    credentialStoreService.putCredential(CredentialMetadata
+                            .newBuilder()
+                            .setId(registerClientResponse.getClientId())
+                            .setSecret(registerClientResponse.getClientSecret())
+                            .setOwnerId(tenant.getTenantId())
+                            .setType(Type.CILOGON)
+                            .build());
+                    return null;
+                }, READ_CILOGON_CREDENTIAL)
+                .stepOnce(CONFIGURE_FEDERATED_IDP, results -> {
+                    if (!registerCILogonClient) {
+                        return null;
+                    }
+                    // Read back the registered client, it may have been registered by an earlier attempt
+                    CredentialMetadata ciLogonCredential = credentialStoreService.getCredential(GetCredentialRequest.newBuilder()
+                            .setOwnerId(tenant.getTenantId())
+                            .setType(Type.CILOGON)
+                            .build());
+                    ConfigureFederateIDPRequest request = ConfigureFederateIDPRequest
+                            .newBuilder()
+                            .setTenantId(tenant.getTenantId())
+                            .setClientID(ciLogonCredential.getId())
+                            .setClientSec(ciLogonCredential.getSecret())
+                            .setScope(tenant.getScope())
+                            .setRequesterEmail(tenant.getRequesterEmail())
+                            .setType(FederatedIDPs.CILOGON)
+                            .build();
+                    iamAdminService.configureFederatedIDP(request);
+                    return null;
+                }, REGISTER_CILOGON_CLIENT, iamStep)
+                .step(UPDATE_TENANT_STATUS, results -> {
+                    com.veda.central.core.tenant.profile.api.UpdateStatusRequest updateTenantRequest = com.veda.central.core.tenant.profile.api.UpdateStatusRequest.newBuilder()
+                            .setTenantId(tenant.getTenantId())
+                            .setStatus(TenantStatus.ACTIVE)
+                            .setUpdatedBy(Constants.SYSTEM)
+                            .build();
+                    return tenantProfileService.updateTenantStatus(updateTenantRequest);
+                }, iamStep, CONFIGURE_FEDERATED_IDP)
                 .build();
 
-        CredentialMetadata metadata = credentialStoreService.getCredential(getCreRe);
+        try {
+            return graph.execute(serviceChainExecutor.getStepExecutor(), journal).get(UPDATE_TENANT_STATUS, UpdateStatusResponse.class);
+        } catch (ServiceException ex) {
+            if (registerCILogonClient && !realmReady.get() && !journal.isCompleted(iamStep)) {
+                removeCILogonClient(tenant, performedBy, registeredClientId.get(), journal);
+            }
+            throw new RuntimeException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Deletes the CILogon client registered for a tenant whose realm could not be set up, together with its
+     * credential, so that approving the tenant again registers a new client.
+     */
+    private void removeCILogonClient(Tenant tenant, String performedBy, String clientId, StepJournal journal) {
+        try {
+            if (clientId == null && journal.isCompleted(REGISTER_CILOGON_CLIENT)) {
+                // Registered by an earlier attempt of this execution
+                clientId = credentialStoreService.getCredential(GetCredentialRequest.newBuilder()
+                        .setOwnerId(tenant.getTenantId())
+                        .setType(Type.CILOGON)
+                        .build()).getId();
+            }
+            if (StringUtils.isBlank(clientId)) {
+                return;
+            }
+
+            LOGGER.info("Deleting CILogon client " + clientId + " of tenant " + tenant.getTenantId() + " after the realm set up failed");
+            federatedAuthentication.deleteClient(DeleteClientRequest.newBuilder()
+                    .setTenantId(tenant.getTenantId())
+                    .setClientId(clientId)
+                    .setPerformedBy(performedBy)
+                    .build());
+            credentialStoreService.deleteCredential(tenant.getTenantId(), Type.CILOGON);
+
+        } catch (Exception ex) {
+            LOGGER.error("Error occurred while deleting the CILogon client of tenant " + tenant.getTenantId() +
+                    ", reason: " + ex.getMessage(), ex);
+        }
+    }
+
+    private SetUpTenantResponse setUpIamTenant(Tenant tenant, CredentialMetadata metadata, boolean update) {
         SetUpTenantRequest setUpTenantRequest = SetUpTenantRequest
                 .newBuilder()
                 .setTenantId(tenant.getTenantId())
@@ -163,41 +318,26 @@ public class TenantActivationTask<T, U> extends ServiceTaskImpl<T, U> {
                 .setVedaClientId(metadata.getId())
                 .build();
 
-        SetUpTenantResponse iamResponse;
         if (update) {
-            iamResponse = iamAdminService.updateTenant(setUpTenantRequest);
+            return iamAdminService.updateTenant(setUpTenantRequest);
         } else {
-            iamResponse = iamAdminService.setUPTenant(setUpTenantRequest);
+            return iamAdminService.setUPTenant(setUpTenantRequest);
         }
+    }
 
-        CredentialMetadata credentialMetadata = CredentialMetadata
-                .newBuilder()
-                .setId(iamResponse.getClientId())
-                .setSecret(iamResponse.getClientSecret())
-                .setOwnerId(tenant.getTenantId())
-                .setType(Type.IAM)
-                .build();
-
-        credentialStoreService.putCredential(credentialMetadata);
-
+    private ClientMetadata buildClientMetadata(Tenant tenant, String performedBy, CredentialMetadata creMeta) {
         String comment = (tenant.getComment() == null || tenant.getComment().trim().isEmpty()) ?
                 "Created by VEDA " : tenant.getComment();
 
-
         String[] scopes = tenant.getScope() != null ? tenant.getScope().split(" ") : new String[0];
 
-        GetCredentialRequest credentialRequest = GetCredentialRequest.newBuilder()
-                .setOwnerId(tenant.getTenantId())
-                .setType(Type.CILOGON).build();
-
         String ciLogonRedirectURI = iamAdminService.getIamServerURL() +
                 "realms" + "/" + tenant.getTenantId() + "/" + "broker" + "/" + "oidc" + "/" + "endpoint";
 
-
         List<String> arrayList = new ArrayList<>();
         arrayList.add(ciLogonRedirectURI);
 
-        ClientMetadata.Builder clientMetadataBuilder = ClientMetadata
+        return ClientMetadata
                 .newBuilder()
                 .setTenantId(tenant.getTenantId())
                 .setTenantName(tenant.getClientName())
@@ -206,46 +346,9 @@ public class TenantActivationTask<T, U> extends ServiceTaskImpl<T, U> {
                 .addAllScope(Arrays.asList(scopes))
                 .addAllRedirectURIs(arrayList)
                 .addAllContacts(tenant.getContactsList())
-                .setPerformedBy(performedBy);
-
-        CredentialMetadata creMeta = credentialStoreService.getCredential(credentialRequest);
-
-        clientMetadataBuilder.setClientId(creMeta.getId());
-
-        if (!update) {
-            // skip CILOGON client creation for local development
-            if (!activeProfile.equalsIgnoreCase("local")) {
-                RegisterClientResponse registerClientResponse = federatedAuthentication.addClient(clientMetadataBuilder.build());
-
-                CredentialMetadata credentialMetadataCILogon = CredentialMetadata
-                        .newBuilder()
-                        .setId(registerClientResponse.getClientId())
-                        .setSecret(registerClientResponse.getClientSecret())
-                        .setOwnerId(tenant.getTenantId())
-                        .setType(Type.CILOGON)
-                        .build();
-
-                credentialStoreService.putCredential(credentialMetadataCILogon);
-
-                ConfigureFederateIDPRequest request = ConfigureFederateIDPRequest
-                        .newBuilder()
-                        .setTenantId(tenant.getTenantId())
-                        .setClientID(registerClientResponse.getClientId())
-                        .setClientSec(registerClientResponse.getClientSecret())
-                        .setScope(tenant.getScope())
-                        .setRequesterEmail(tenant.getRequesterEmail())
-                        .setType(FederatedIDPs.CILOGON)
-                        .build();
-                iamAdminService.configureFederatedIDP(request);
-            }
-        }
-
-        com.veda.central.core.tenant.profile.api.UpdateStatusRequest updateTenantRequest = com.veda.central.core.tenant.profile.api.UpdateStatusRequest.newBuilder()
-                .setTenantId(tenant.getTenantId())
-                .setStatus(TenantStatus.ACTIVE)
-                .setUpdatedBy(Constants.SYSTEM)
+                .setPerformedBy(performedBy)
+                .setClientId(creMeta.getId())
                 .build();
-        return tenantProfileService.updateTenantStatus(updateTenantRequest);
     }
 
 }
\ No newline at end of file
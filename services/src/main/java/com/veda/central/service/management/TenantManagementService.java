@@ -43,12 +43,22 @@ import com.veda.central.core.iam.api.UserSearchRequest;
 import com.veda.central.core.identity.api.AuthToken;
 import com.veda.central.core.identity.api.GetUserManagementSATokenRequest;
 import com.veda.central.core.task.ServiceCallback;
+import com.veda.central.core.model.commons.ServiceChainExecution;
+import com.veda.central.core.model.commons.ServiceChainStep;
 import com.veda.central.core.task.ServiceChain;
+import com.veda.central.core.task.ServiceChainExecutor;
 import com.veda.central.core.task.ServiceException;
+import com.veda.central.core.task.ServiceExecutionHandle;
+import com.veda.central.core.tenant.management.api.ActivationStatus;
+import com.veda.central.core.tenant.management.api.ActivationStep;
+import com.veda.central.core.tenant.management.api.ApproveTenantsRequest;
+import com.veda.central.core.tenant.management.api.ApproveTenantsResponse;
 import com.veda.central.core.tenant.management.api.CreateTenantResponse;
 import com.veda.central.core.tenant.management.api.Credentials;
 import com.veda.central.core.tenant.management.api.DeleteTenantRequest;
+import com.veda.central.core.tenant.management.api.GetActivationStatusRequest;
 import com.veda.central.core.tenant.management.api.GetTenantRequest;
+import com.veda.central.core.tenant.management.api.TenantApprovalFailure;
 import com.veda.central.core.tenant.management.api.TenantValidationRequest;
 import com.veda.central.core.tenant.management.api.UpdateTenantRequest;
 import com.veda.central.core.tenant.profile.api.GetAllTenantsForUserRequest;
@@ -68,22 +78,29 @@ import com.veda.central.core.user.profile.api.UserProfileRequest;
 import com.veda.central.service.credential.store.CredentialStoreService;
 import com.veda.central.service.exceptions.InternalServerException;
 import com.veda.central.service.federated.cilogon.FederatedAuthenticationService;
+import com.veda.central.service.federated.cilogon.InstitutionsPayload;
 import com.veda.central.service.iam.IamAdminService;
 import com.veda.central.service.identity.Constants;
 import com.veda.central.service.identity.IdentityService;
 import com.veda.central.service.profile.TenantProfileService;
 import com.veda.central.service.profile.UserProfileService;
-import io.grpc.Context;
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityNotFoundException;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Service
 public class TenantManagementService {
@@ -98,8 +115,14 @@ public class TenantManagementService {
 
     private final FederatedAuthenticationService federatedAuthenticationService;
 
+    private static final String TENANT_ACTIVATION = "TENANT_ACTIVATION";
+
     private final TenantActivationTask<UpdateStatusResponse, UpdateStatusResponse> tenantActivationTask;
 
+    private final ObjectProvider<TenantActivationTask<UpdateStatusResponse, UpdateStatusResponse>> tenantActivationTaskProvider;
+
+    private final ServiceChainExecutor serviceChainExecutor;
+
     private final UserProfileService userProfileService;
 
     private final IdentityService identityService;
@@ -107,20 +130,34 @@ public class TenantManagementService {
     @Value("${veda-auth.tenant.base.uri}")
     private String TENANT_BASE_URI;
 
+    @Value("${tenant.bulk.approval.concurrency:4}")
+    private int bulkApprovalConcurrency;
+
+    @Value("${tenant.bulk.approval.max.size:500}")
+    private int maxBulkApprovals;
+
 
     public TenantManagementService(TenantProfileService tenantProfileService, CredentialStoreService credentialStoreService,
                                    IamAdminService iamAdminService, FederatedAuthenticationService federatedAuthenticationService,
-                                   TenantActivationTask<UpdateStatusResponse, UpdateStatusResponse> tenantActivationTask,
+                                   ObjectProvider<TenantActivationTask<UpdateStatusResponse, UpdateStatusResponse>> tenantActivationTaskProvider,
+                                   ServiceChainExecutor serviceChainExecutor,
                                    UserProfileService userProfileService, IdentityService identityService) {
         this.tenantProfileService = tenantProfileService;
         this.credentialStoreService = credentialStoreService;
         this.iamAdminService = iamAdminService;
         this.federatedAuthenticationService = federatedAuthenticationService;
-        this.tenantActivationTask = tenantActivationTask;
+        this.tenantActivationTask = tenantActivationTaskProvider.getObject();
+        this.tenantActivationTaskProvider = tenantActivationTaskProvider;
+        this.serviceChainExecutor = serviceChainExecutor;
         this.userProfileService = userProfileService;
         this.identityService = identityService;
     }
 
+    @PostConstruct
+    public void registerRecoveries() {
+        serviceChainExecutor.registerRecovery(TENANT_ACTIVATION, this::resumeActivation);
+    }
+
 
     public CreateTenantResponse createTenant(Tenant request) {
         try {
@@ -418,90 +455,10 @@ public class TenantManagementService {
 
                 if (request.getStatus().equals(TenantStatus.ACTIVE)) {
 
-                    Context ctx = Context.current().fork();
-                    // Set ctx as the current context within the Runnable
-                    UpdateStatusRequest finalRequest = request;
-                    CredentialMetadata finalMetadata = metadata;
-                    ctx.run(() -> {
-                        ServiceCallback callback = new ServiceCallback() {
-                            @Override
-                            public void onCompleted(Object obj) {
-                                com.veda.central.core.tenant.profile.api.GetTenantRequest tenantRequest = com.veda.central.core.tenant.profile.api.GetTenantRequest
-                                        .newBuilder()
-                                        .setTenantId(finalMetadata.getOwnerId())
-                                        .build();
-
-                                com.veda.central.core.tenant.profile.api.GetTenantResponse tenantResponse = tenantProfileService.getTenant(tenantRequest);
-                                Tenant savedTenant = tenantResponse.getTenant();
-
-                                GetCredentialRequest credentialRequest = GetCredentialRequest.newBuilder()
-                                        .setOwnerId(finalMetadata.getOwnerId())
-                                        .setType(Type.IAM)
-                                        .build();
-
-                                CredentialMetadata iamMeta = credentialStoreService.getCredential(credentialRequest);
-
-                                GetUserManagementSATokenRequest userManagementSATokenRequest = GetUserManagementSATokenRequest
-                                        .newBuilder()
-                                        .setClientId(iamMeta.getId())
-                                        .setClientSecret(iamMeta.getSecret())
-                                        .setTenantId(finalMetadata.getOwnerId())
-                                        .build();
-                                AuthToken token = identityService.getUserManagementServiceAccountAccessToken(userManagementSATokenRequest);
-
-                                if (token != null && StringUtils.isNotBlank(token.getAccessToken())) {
-                                    UserSearchMetadata userSearchMetadata = UserSearchMetadata.newBuilder()
-                                            .setUsername(savedTenant.getAdminUsername())
-                                            .build();
-
-                                    UserSearchRequest searchRequest = UserSearchRequest.newBuilder()
-                                            .setTenantId(savedTenant.getTenantId())
-                                            .setPerformedBy(finalRequest.getUpdatedBy())
-                                            .setAccessToken(token.getAccessToken())
-                                            .setUser(userSearchMetadata)
-                                            .build();
-
-                                    UserRepresentation userRepresentation = iamAdminService.getUser(searchRequest);
-                                    UserProfile profile = convertToProfile(userRepresentation);
-                                    UserProfileRequest userProfileRequest = UserProfileRequest.newBuilder()
-                                            .setProfile(profile)
-                                            .setPerformedBy(finalRequest.getUpdatedBy())
-                                            .setTenantId(finalRequest.getTenantId())
-                                            .build();
-
-                                    UserProfile userProfile = userProfileService.getUserProfile(userProfileRequest);
-
-                                    if (userProfile == null || StringUtils.isBlank(userProfile.getUsername())) {
-                                        userProfileService.createUserProfile(userProfileRequest);
-                                    } else {
-                                        userProfileService.updateUserProfile(userProfileRequest);
-                                    }
-
-                                } else {
-                                    String msg = "Tenant Activation task failed, cannot find IAM server credentials";
-                                    LOGGER.error(msg);
-                                    throw new RuntimeException(msg);
-                                }
-                            }
-
-                            @Override
-                            public void onError(ServiceException ex) {
-                                String msg = "Tenant Activation task failed " + ex;
-                                LOGGER.error(msg);
-                                com.veda.central.core.tenant.profile.api.UpdateStatusRequest updateTenantRequest = com.veda.central.core.tenant.profile.api.UpdateStatusRequest.newBuilder()
-                                        .setTenantId(finalRequest.getTenantId())
-                                        .setStatus(TenantStatus.CANCELLED)
-                                        .setUpdatedBy(Constants.SYSTEM)
-                                        .build();
-                                tenantProfileService.updateTenantStatus(updateTenantRequest);
-                                throw new RuntimeException(msg);
-                            }
-                        };
-
-                        ServiceChain chain = ServiceChain.newBuilder(tenantActivationTask, callback).build();
-                        chain.serve(response);
-                    });
-                    return response;
+                    // Activation runs in the background, callers poll its progress with the returned trace id
+                    ServiceExecutionHandle handle = serviceChainExecutor.submit(TENANT_ACTIVATION, metadata.getOwnerId(),
+                            request.getUpdatedBy(), buildActivationChain(metadata.getOwnerId(), request.getUpdatedBy()), response);
+                    return response.toBuilder().setActivationTraceId(handle.getTraceId()).build();
 
                 } else {
                     return response;
@@ -519,6 +476,148 @@ public class TenantManagementService {
         }
     }
 
+    /**
+     * Approves the given tenants. Status updates are drained through a bounded worker pool and the resulting
+     * activations are throttled by the service chain executor, so a large backlog is processed at a controlled rate.
+     */
+    public ApproveTenantsResponse approveTenants(ApproveTenantsRequest request) {
+        List<String> clientIds = request.getClientIdsList().stream().distinct().toList();
+        if (clientIds.size() > maxBulkApprovals) {
+            throw new IllegalArgumentException("Cannot approve more than " + maxBulkApprovals + " tenants in one request");
+        }
+
+        ApproveTenantsResponse.Builder response = ApproveTenantsResponse.newBuilder();
+        if (clientIds.isEmpty()) {
+            return response.build();
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(bulkApprovalConcurrency, clientIds.size()));
+        try {
+            List<Future<UpdateStatusResponse>> futures = new ArrayList<>(clientIds.size());
+            for (String clientId : clientIds) {
+                UpdateStatusRequest statusRequest = UpdateStatusRequest.newBuilder()
+                        .setClientId(clientId)
+                        .setStatus(TenantStatus.ACTIVE)
+                        .setUpdatedBy(request.getUpdatedBy())
+                        .build();
+                futures.add(executorService.submit(() -> updateTenantStatus(statusRequest)));
+            }
+
+            for (int i = 0; i < clientIds.size(); i++) {
+                try {
+                    response.addApproved(futures.get(i).get());
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    LOGGER.error("Approval failed for tenant " + clientIds.get(i) + ", reason: " + cause.getMessage());
+                    response.addFailed(TenantApprovalFailure.newBuilder()
+                            .setClientId(clientIds.get(i))
+                            .setReason(String.valueOf(cause.getMessage()))
+                            .build());
+                }
+            }
+            return response.build();
+
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            String msg = "Interrupted while approving tenants";
+            LOGGER.error(msg);
+            throw new InternalServerException(msg, ex);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private ServiceChain buildActivationChain(long tenantId, String updatedBy) {
+        ServiceCallback callback = new ServiceCallback() {
+            @Override
+            public void onCompleted(Object obj) {
+                com.veda.central.core.tenant.profile.api.GetTenantRequest tenantRequest = com.veda.central.core.tenant.profile.api.GetTenantRequest
+                        .newBuilder()
+                        .setTenantId(tenantId)
+                        .build();
+
+                com.veda.central.core.tenant.profile.api.GetTenantResponse tenantResponse = tenantProfileService.getTenant(tenantRequest);
+                Tenant savedTenant = tenantResponse.getTenant();
+
+                GetCredentialRequest credentialRequest = GetCredentialRequest.newBuilder()
+                        .setOwnerId(tenantId)
+                        .setType(Type.IAM)
+                        .build();
+
+                CredentialMetadata iamMeta = credentialStoreService.getCredential(credentialRequest);
+
+                GetUserManagementSATokenRequest userManagementSATokenRequest = GetUserManagementSATokenRequest
+                        .newBuilder()
+                        .setClientId(iamMeta.getId())
+                        .setClientSecret(iamMeta.getSecret())
+                        .setTenantId(tenantId)
+                        .build();
+                AuthToken token = identityService.getUserManagementServiceAccountAccessToken(userManagementSATokenRequest);
+
+                if (token != null && StringUtils.isNotBlank(token.getAccessToken())) {
+                    UserSearchMetadata userSearchMetadata = UserSearchMetadata.newBuilder()
+                            .setUsername(savedTenant.getAdminUsername())
+                            .build();
+
+                    UserSearchRequest searchRequest = UserSearchRequest.newBuilder()
+                            .setTenantId(savedTenant.getTenantId())
+                            .setPerformedBy(updatedBy)
+                            .setAccessToken(token.getAccessToken())
+                            .setUser(userSearchMetadata)
+                            .build();
+
+                    UserRepresentation userRepresentation = iamAdminService.getUser(searchRequest);
+                    UserProfile profile = convertToProfile(userRepresentation);
+                    UserProfileRequest userProfileRequest = UserProfileRequest.newBuilder()
+                            .setProfile(profile)
+                            .setPerformedBy(updatedBy)
+                            .setTenantId(tenantId)
+                            .build();
+
+                    UserProfile userProfile = userProfileService.getUserProfile(userProfileRequest);
+
+                    if (userProfile == null || StringUtils.isBlank(userProfile.getUsername())) {
+                        userProfileService.createUserProfile(userProfileRequest);
+                    } else {
+                        userProfileService.updateUserProfile(userProfileRequest);
+                    }
+
+                } else {
+                    String msg = "Tenant Activation task failed, cannot find IAM server credentials";
+                    LOGGER.error(msg);
+                    throw new RuntimeException(msg);
+                }
+            }
+
+            @Override
+            public void onError(ServiceException ex) {
+                String msg = "Tenant Activation task failed " + ex;
+                LOGGER.error(msg);
+                com.veda.central.core.tenant.profile.api.UpdateStatusRequest updateTenantRequest = com.veda.central.core.tenant.profile.api.UpdateStatusRequest.newBuilder()
+                        .setTenantId(tenantId)
+                        .setStatus(TenantStatus.CANCELLED)
+                        .setUpdatedBy(Constants.SYSTEM)
+                        .build();
+                tenantProfileService.updateTenantStatus(updateTenantRequest);
+                throw new RuntimeException(msg);
+            }
+        };
+
+        return ServiceChain.newBuilder(tenantActivationTaskProvider.getObject(), callback).build();
+    }
+
+    /**
+     * Resumes a tenant activation interrupted by a restart. Steps already completed are skipped by the activation task.
+     */
+    private void resumeActivation(ServiceChainExecution execution) {
+        long tenantId = execution.getSubjectId();
+        UpdateStatusResponse data = UpdateStatusResponse.newBuilder()
+                .setTenantId(tenantId)
+                .setStatus(TenantStatus.ACTIVE)
+                .build();
+        serviceChainExecutor.resume(execution, buildActivationChain(tenantId, execution.getPerformedBy()), data);
+    }
+
     public OperationStatus validateTenant(TenantValidationRequest request) {
         try {
             GetCredentialRequest credentialRequest = GetCredentialRequest.newBuilder()
@@ -716,6 +815,18 @@ public class TenantManagementService {
         }
     }
 
+    public InstitutionsPayload getInstitutionsPayload(CacheManipulationRequest request) {
+        try {
+            LOGGER.debug("Request received to getInstitutionsPayload for tenant  " + request.getTenantId());
+            return federatedAuthenticationService.getInstitutionsPayload(request.getTenantId());
+
+        } catch (Exception ex) {
+            String msg = "Error occurred calling getInstitutionsPayload method for tenant  " + request.getTenantId() + " reason :" + ex.getMessage();
+            LOGGER.error(msg, ex);
+            throw new InternalServerException(msg, ex);
+        }
+    }
+
     public GetStatusUpdateAuditTrailResponse getTenantStatusUpdateAuditTrail(GetAuditTrailRequest request) {
         return tenantProfileService.getTenantStatusUpdateAuditTrail(request);
     }
@@ -724,6 +835,54 @@ public class TenantManagementService {
         return tenantProfileService.getTenantAttributeUpdateAuditTrail(request);
     }
 
+    public ActivationStatus getActivationStatus(GetActivationStatusRequest request) {
+        ServiceChainExecution execution = serviceChainExecutor.getExecution(request.getTraceId())
+                .filter(exec -> TENANT_ACTIVATION.equals(exec.getName()))
+                .orElseThrow(() -> new EntityNotFoundException("Cannot find a tenant activation with trace id " + request.getTraceId()));
+
+        try {
+            ActivationStatus.Builder builder = ActivationStatus.newBuilder()
+                    .setTraceId(execution.getId())
+                    .setTenantId(execution.getSubjectId())
+                    .setStatus(execution.getStatus())
+                    .setCompletedSteps(execution.getCompletedSteps())
+                    .setTotalSteps(execution.getTotalSteps())
+                    .setStartedAt(execution.getCreatedAt().toString());
+
+            if (execution.getCurrentStep() != null) {
+                builder.setCurrentStep(execution.getCurrentStep());
+            }
+            if (execution.getMessage() != null) {
+                builder.setMessage(execution.getMessage());
+            }
+            if (execution.getUpdatedAt() != null) {
+                builder.setUpdatedAt(execution.getUpdatedAt().toString());
+            }
+
+            for (ServiceChainStep step : serviceChainExecutor.getSteps(execution.getId())) {
+                ActivationStep.Builder stepBuilder = ActivationStep.newBuilder()
+                        .setName(step.getName())
+                        .setStatus(step.getStatus())
+                        .setAttempts(step.getAttempts());
+
+                Date time = step.getFinishedAt() != null ? step.getFinishedAt() : step.getStartedAt();
+                if (time != null) {
+                    stepBuilder.setTimeStamp(time.toString());
+                }
+                if (step.getMessage() != null) {
+                    stepBuilder.setMessage(step.getMessage());
+                }
+                builder.addSteps(stepBuilder.build());
+            }
+            return builder.build();
+
+        } catch (Exception ex) {
+            String msg = "Error occurred while fetching the activation status for trace id " + request.getTraceId() + ", reason: " + ex.getMessage();
+            LOGGER.error(msg, ex);
+            throw new InternalServerException(msg, ex);
+        }
+    }
+
     private UserProfile convertToProfile(UserRepresentation representation) {
         UserProfile.Builder profileBuilder = UserProfile.newBuilder();
 
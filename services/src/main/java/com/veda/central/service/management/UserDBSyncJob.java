@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.management;
+
+import com.veda.central.core.constants.Constants;
+import com.veda.central.core.iam.api.UserRepresentation;
+import com.veda.central.core.model.user.UserSyncCheckpoint;
+import com.veda.central.core.repo.user.UserSyncCheckpointRepository;
+import com.veda.central.core.user.profile.api.UserProfile;
+import com.veda.central.service.iam.IamAdminService;
+import com.veda.central.service.profile.UserProfileService;
+import com.veda.central.service.profile.UserProfileSyncResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Synchronizes the user profiles of a tenant with its Keycloak realm in the background.
+ * <p>
+ * The first run, or a run requested as a full sync, pages through every user of the realm. Later runs only fetch the
+ * users changed since the previous completed run, as reported by the realm admin events, plus the users created since
+ * then, and fall back to a full run when admin events are disabled. Changes that produce no admin event, such as users
+ * editing themselves in the account console, are picked up by a full run forced every
+ * {@code user.sync.full.interval.hours}. Only profiles whose content hash changed are written. Progress is checkpointed after
+ * every page, so that a full run interrupted by a failure or a restart resumes where it stopped.
+ */
+@Component
+public class UserDBSyncJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserDBSyncJob.class);
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    public static final String MODE_FULL = "FULL";
+    public static final String MODE_INCREMENTAL = "INCREMENTAL";
+
+    // Re-reads a margin of changes before the watermark to tolerate clock skew with the Keycloak server;
+    // profiles that did not change are skipped by their content hash
+    private static final long WATERMARK_OVERLAP_MILLIS = 5 * 60 * 1000;
+
+    private final IamAdminService iamAdminService;
+    private final UserProfileService userProfileService;
+    private final UserSyncCheckpointRepository checkpointRepository;
+    private final ExecutorService executor;
+    private final Set<Long> runningTenants = ConcurrentHashMap.newKeySet();
+
+    @Value("${user.sync.batch.size:100}")
+    private int batchSize;
+
+    @Value("${user.sync.full.interval.hours:24}")
+    private long fullSyncIntervalHours;
+
+    public UserDBSyncJob(IamAdminService iamAdminService, UserProfileService userProfileService,
+                         UserSyncCheckpointRepository checkpointRepository,
+                         @Value("${user.sync.parallelism:2}") int parallelism) {
+        this.iamAdminService = iamAdminService;
+        this.userProfileService = userProfileService;
+        this.checkpointRepository = checkpointRepository;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, parallelism));
+    }
+
+    /**
+     * Starts a synchronization of the given tenant in the background.
+     *
+     * @param tenantId the tenant id
+     * @param clientId the client whose roles are synchronized as client roles
+     * @param fullSync whether to go through every user instead of only the changed ones
+     * @return false if a synchronization of the tenant is already running
+     */
+    public boolean start(long tenantId, String clientId, boolean fullSync) {
+        if (!runningTenants.add(tenantId)) {
+            return false;
+        }
+
+        try {
+            UserSyncCheckpoint checkpoint = checkpointRepository.findById(tenantId).orElseGet(() -> {
+                UserSyncCheckpoint newCheckpoint = new UserSyncCheckpoint();
+                newCheckpoint.setTenantId(tenantId);
+                return newCheckpoint;
+            });
+
+            boolean resume = MODE_FULL.equals(checkpoint.getMode()) && !STATUS_COMPLETED.equals(checkpoint.getStatus())
+                    && checkpoint.getNextOffset() > 0;
+
+            if (!resume) {
+                checkpoint.setMode(fullSync || checkpoint.getWatermark() == null || isFullSyncDue(checkpoint)
+                        ? MODE_FULL : MODE_INCREMENTAL);
+                checkpoint.setNextOffset(0);
+                checkpoint.setRunStartedAt(System.currentTimeMillis());
+                checkpoint.setProcessed(0);
+                checkpoint.setCreated(0);
+                checkpoint.setUpdated(0);
+                checkpoint.setUnchanged(0);
+            }
+            checkpoint.setClientId(clientId);
+            checkpoint.setStatus(STATUS_RUNNING);
+            checkpoint.setError(null);
+            UserSyncCheckpoint saved = checkpointRepository.save(checkpoint);
+
+            executor.submit(() -> run(saved));
+            return true;
+
+        } catch (Exception ex) {
+            runningTenants.remove(tenantId);
+            throw ex;
+        }
+    }
+
+    public Optional<UserSyncCheckpoint> getCheckpoint(long tenantId) {
+        return checkpointRepository.findById(tenantId);
+    }
+
+    /**
+     * Resumes the runs that were still in progress when the service last stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedRuns() {
+        try {
+            for (UserSyncCheckpoint checkpoint : checkpointRepository.findAllByStatus(STATUS_RUNNING)) {
+                LOGGER.info("Resuming user DB synchronization of tenant " + checkpoint.getTenantId());
+                start(checkpoint.getTenantId(), checkpoint.getClientId(), MODE_FULL.equals(checkpoint.getMode()));
+            }
+        } catch (Exception ex) {
+            LOGGER.error("Error occurred while resuming user DB synchronizations, reason: " + ex.getMessage(), ex);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(UserSyncCheckpoint checkpoint) {
+        long tenantId = checkpoint.getTenantId();
+        try {
+            LOGGER.info("User DB synchronization of tenant " + tenantId + " started in " + checkpoint.getMode() +
+                    " mode at offset " + checkpoint.getNextOffset());
+
+            boolean synced = false;
+            if (MODE_INCREMENTAL.equals(checkpoint.getMode())) {
+                synced = runIncremental(checkpoint);
+            }
+            if (!synced) {
+                checkpoint.setMode(MODE_FULL);
+                iamAdminService.forEachEndUserPage(tenantId, checkpoint.getClientId(), checkpoint.getNextOffset(),
+                        (users, read) -> {
+                            synchronize(checkpoint, users);
+                            checkpoint.setNextOffset(checkpoint.getNextOffset() + read);
+                            checkpointRepository.save(checkpoint);
+                        });
+            }
+
+            checkpoint.setStatus(STATUS_COMPLETED);
+            checkpoint.setWatermark(checkpoint.getRunStartedAt());
+            if (MODE_FULL.equals(checkpoint.getMode())) {
+                checkpoint.setLastFullSyncAt(checkpoint.getRunStartedAt());
+            }
+            checkpoint.setNextOffset(0);
+            checkpointRepository.save(checkpoint);
+            LOGGER.info("User DB synchronization of tenant " + tenantId + " completed, processed " +
+                    checkpoint.getProcessed() + " users");
+
+        } catch (Exception ex) {
+            LOGGER.error("Error occurred while synchronizing user DB of tenant " + tenantId + ", reason: " + ex.getMessage(), ex);
+            checkpoint.setStatus(STATUS_FAILED);
+            checkpoint.setError(ex.getMessage() != null && ex.getMessage().length() > 1024
+                    ? ex.getMessage().substring(0, 1024) : ex.getMessage());
+            checkpointRepository.save(checkpoint);
+
+        } finally {
+            runningTenants.remove(tenantId);
+        }
+    }
+
+    private boolean isFullSyncDue(UserSyncCheckpoint checkpoint) {
+        if (fullSyncIntervalHours <= 0) {
+            return false;
+        }
+        return checkpoint.getLastFullSyncAt() == null
+                || System.currentTimeMillis() - checkpoint.getLastFullSyncAt() >= TimeUnit.HOURS.toMillis(fullSyncIntervalHours);
+    }
+
+    /**
+     * @return false if the changed users cannot be determined and a full run is required
+     */
+    private boolean runIncremental(UserSyncCheckpoint checkpoint) {
+        List<UserRepresentation> users = iamAdminService.getEndUsersChangedSince(checkpoint.getTenantId(),
+                checkpoint.getClientId(), checkpoint.getWatermark() - WATERMARK_OVERLAP_MILLIS);
+        if (users == null) {
+            LOGGER.info("Admin events are disabled for tenant " + checkpoint.getTenantId() + ", falling back to a full sync");
+            return false;
+        }
+
+        for (int from = 0; from < users.size(); from += batchSize) {
+            synchronize(checkpoint, users.subList(from, Math.min(from + batchSize, users.size())));
+            checkpointRepository.save(checkpoint);
+        }
+        return true;
+    }
+
+    private void synchronize(UserSyncCheckpoint checkpoint, List<UserRepresentation> users) {
+        List<UserProfile> profiles = new ArrayList<>();
+        for (UserRepresentation user : users) {
+            profiles.add(UserManagementService.convertToProfile(user));
+        }
+
+        UserProfileSyncResult result = userProfileService.synchronizeUserProfiles(checkpoint.getTenantId(), profiles, Constants.SYSTEM);
+        checkpoint.setProcessed(checkpoint.getProcessed() + profiles.size());
+        checkpoint.setCreated(checkpoint.getCreated() + result.getCreated());
+        checkpoint.setUpdated(checkpoint.getUpdated() + result.getUpdated());
+        checkpoint.setUnchanged(checkpoint.getUnchanged() + result.getUnchanged());
+    }
+}
@@ -31,8 +31,6 @@ import com.veda.central.core.iam.api.DeleteUserAttributeRequest;
 import com.veda.central.core.iam.api.DeleteUserRolesRequest;
 import com.veda.central.core.iam.api.FindUsersRequest;
 import com.veda.central.core.iam.api.FindUsersResponse;
-import com.veda.central.core.iam.api.GetAllResources;
-import com.veda.central.core.iam.api.GetAllResourcesResponse;
 import com.veda.central.core.iam.api.GetExternalIDPsRequest;
 import com.veda.central.core.iam.api.GetExternalIDPsResponse;
 import com.veda.central.core.iam.api.OperationStatus;
@@ -41,16 +39,19 @@ import com.veda.central.core.iam.api.RegisterUserResponse;
 import com.veda.central.core.iam.api.RegisterUsersRequest;
 import com.veda.central.core.iam.api.RegisterUsersResponse;
 import com.veda.central.core.iam.api.ResetUserPassword;
-import com.veda.central.core.iam.api.ResourceTypes;
 import com.veda.central.core.iam.api.UpdateUserProfileRequest;
 import com.veda.central.core.iam.api.UserAttribute;
+import com.veda.central.core.iam.api.UserImportAction;
+import com.veda.central.core.iam.api.UserRegistrationStatus;
 import com.veda.central.core.iam.api.UserRepresentation;
 import com.veda.central.core.iam.api.UserSearchMetadata;
 import com.veda.central.core.iam.api.UserSearchRequest;
 import com.veda.central.core.identity.api.AuthToken;
 import com.veda.central.core.identity.api.GetUserManagementSATokenRequest;
 import com.veda.central.core.user.management.api.LinkUserProfileRequest;
+import com.veda.central.core.model.user.UserSyncCheckpoint;
 import com.veda.central.core.user.management.api.SynchronizeUserDBRequest;
+import com.veda.central.core.user.management.api.SynchronizeUserDBStatus;
 import com.veda.central.core.user.management.api.UserProfileRequest;
 import com.veda.central.core.user.profile.api.GetAllUserProfilesResponse;
 import com.veda.central.core.user.profile.api.GetUpdateAuditTrailRequest;
@@ -62,7 +63,6 @@ import com.veda.central.service.exceptions.InternalServerException;
 import com.veda.central.service.iam.IamAdminService;
 import com.veda.central.service.identity.IdentityService;
 import com.veda.central.service.profile.UserProfileService;
-import io.grpc.Context;
 import jakarta.persistence.EntityNotFoundException;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -71,6 +71,7 @@ import org.springframework.stereotype.Service;
 
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -85,11 +86,14 @@ public class UserManagementService {
     private final UserProfileService userProfileService;
     private final IdentityService identityService;
     private final IamAdminService iamAdminService;
+    private final UserDBSyncJob userDBSyncJob;
 
-    public UserManagementService(UserProfileService userProfileService, IdentityService identityService, IamAdminService iamAdminService) {
+    public UserManagementService(UserProfileService userProfileService, IdentityService identityService, IamAdminService iamAdminService,
+                                 UserDBSyncJob userDBSyncJob) {
         this.userProfileService = userProfileService;
         this.identityService = identityService;
         this.iamAdminService = iamAdminService;
+        this.userDBSyncJob = userDBSyncJob;
     }
 
     /**
@@ -142,43 +146,38 @@ public class UserManagementService {
 
             RegisterUsersResponse registerUsersResponse = iamAdminService.registerAndEnableUsers(request);
 
-            if (!request.getUsersList().isEmpty() && registerUsersResponse.getAllUseresRegistered()) {
-                try {
-                    request.getUsersList().forEach(user -> {
-                        List<com.veda.central.core.user.profile.api.UserAttribute> userAtrList = new ArrayList<>();
-                        if (!user.getAttributesList().isEmpty()) {
-
-                            user.getAttributesList().forEach(atr -> {
-                                com.veda.central.core.user.profile.api.UserAttribute userAttribute = com.veda.central.core.user.profile.api.UserAttribute.newBuilder()
-                                        .setKey(atr.getKey())
-                                        .addAllValues(atr.getValuesList())
-                                        .build();
-
-                                userAtrList.add(userAttribute);
-                            });
-                        }
-
-
-                        UserProfile profile = UserProfile.newBuilder()
-                                .setFirstName(user.getFirstName())
-                                .setLastName(user.getLastName())
-                                .setEmail(user.getEmail())
-                                .setStatus(UserStatus.ACTIVE)
-                                .addAllAttributes(userAtrList)
-                                .addAllRealmRoles(user.getRealmRolesList())
-                                .addAllClientRoles(user.getClientRolesList())
-                                .setUsername(user.getUsername().toLowerCase())
-                                .build();
-                        com.veda.central.core.user.profile.api.UserProfileRequest profileRequest = com.veda.central.core.user.profile.api.UserProfileRequest.newBuilder()
-                                .setProfile(profile)
-                                .setTenantId(request.getTenantId())
-                                .build();
+            Map<String, UserImportAction> actions = new HashMap<>();
+            registerUsersResponse.getResultsList().stream()
+                    .filter(UserRegistrationStatus::getRegistered)
+                    .forEach(status -> actions.put(status.getUsername(), status.getAction()));
+
+            // Users that already existed are never rolled back; overwritten ones get their profile brought in line
+            List<UserRepresentation> addedUsers = new ArrayList<>();
+            List<UserProfile> createdProfiles = new ArrayList<>();
+            List<UserProfile> overwrittenProfiles = new ArrayList<>();
+            for (UserRepresentation user : request.getUsersList()) {
+                UserImportAction action = actions.get(user.getUsername());
+                if (action == UserImportAction.ADDED) {
+                    addedUsers.add(user);
+                    createdProfiles.add(toUserProfile(user));
+                } else if (action == UserImportAction.SKIPPED) {
+                    createdProfiles.add(toUserProfile(user));
+                } else if (action == UserImportAction.OVERWRITTEN) {
+                    overwrittenProfiles.add(toUserProfile(user));
+                }
+            }
 
-                        userProfileService.createUserProfile(profileRequest);
-                    });
+            if (!createdProfiles.isEmpty() || !overwrittenProfiles.isEmpty()) {
+                try {
+                    if (!createdProfiles.isEmpty()) {
+                        userProfileService.createUserProfiles(request.getTenantId(), createdProfiles);
+                    }
+                    if (!overwrittenProfiles.isEmpty()) {
+                        userProfileService.synchronizeUserProfiles(request.getTenantId(), overwrittenProfiles, request.getPerformedBy());
+                    }
 
                 } catch (Exception ex) {
-                    request.getUsersList().forEach(user -> {
+                    addedUsers.forEach(user -> {
                         UserSearchMetadata metadata = UserSearchMetadata.newBuilder()
                                 .setUsername(user.getUsername())
                                 .build();
@@ -191,6 +190,7 @@ public class UserManagementService {
                                 .build();
                         iamAdminService.deleteUser(searchRequest);
                     });
+                    throw ex;
                 }
             }
 
@@ -207,6 +207,29 @@ public class UserManagementService {
         }
     }
 
+    private UserProfile toUserProfile(UserRepresentation user) {
+        List<com.veda.central.core.user.profile.api.UserAttribute> userAtrList = new ArrayList<>();
+        user.getAttributesList().forEach(atr -> {
+            com.veda.central.core.user.profile.api.UserAttribute userAttribute = com.veda.central.core.user.profile.api.UserAttribute.newBuilder()
+                    .setKey(atr.getKey())
+                    .addAllValues(atr.getValuesList())
+                    .build();
+
+            userAtrList.add(userAttribute);
+        });
+
+        return UserProfile.newBuilder()
+                .setFirstName(user.getFirstName())
+                .setLastName(user.getLastName())
+                .setEmail(user.getEmail())
+                .setStatus(UserStatus.ACTIVE)
+                .addAllAttributes(userAtrList)
+                .addAllRealmRoles(user.getRealmRolesList())
+                .addAllClientRoles(user.getClientRolesList())
+                .setUsername(user.getUsername().toLowerCase())
+                .build();
+    }
+
     /**
      * Adds attributes to the user profiles based on the provided request.
      *
@@ -217,41 +240,14 @@ public class UserManagementService {
      */
     public OperationStatus addUserAttributes(AddUserAttributesRequest request) {
         try {
-            OperationStatus status = iamAdminService.addUserAttributes(request);
-
-            for (String user : request.getUsersList()) {
-                UserSearchMetadata metadata = UserSearchMetadata.newBuilder().setUsername(user).build();
-
-                UserSearchRequest searchRequest = UserSearchRequest
-                        .newBuilder()
-                        .setClientId(request.getClientId())
-                        .setTenantId(request.getTenantId())
-                        .setAccessToken(request.getAccessToken())
-                        .setUser(metadata)
-                        .build();
-
-                UserRepresentation representation = iamAdminService.getUser(searchRequest);
-
-
-                if (representation != null) {
-                    UserProfile profile = this.convertToProfile(representation);
-
-                    com.veda.central.core.user.profile.api.UserProfileRequest req = com.veda.central.core.user.profile.api.UserProfileRequest.newBuilder()
-                            .setTenantId(request.getTenantId())
-                            .setProfile(profile)
-                            .build();
-
-
-                    UserProfile existingProfile = userProfileService.getUserProfile(req);
-
-                    if (existingProfile == null || StringUtils.isBlank(existingProfile.getUsername())) {
-                        userProfileService.createUserProfile(req);
-                    } else {
-                        userProfileService.updateUserProfile(req);
-                    }
-                }
-
+            OperationStatus status;
+            try {
+                status = iamAdminService.addUserAttributes(request);
+            } catch (Exception ex) {
+                refreshUserProfilesAfterFailure(request.getTenantId(), request.getClientId(), request.getUsersList(), request.getPerformedBy());
+                throw ex;
             }
+            refreshUserProfiles(request.getTenantId(), request.getClientId(), request.getUsersList(), request.getPerformedBy());
             return status;
 
         } catch (Exception ex) {
@@ -275,32 +271,14 @@ public class UserManagementService {
      */
     public OperationStatus deleteUserAttributes(DeleteUserAttributeRequest request) {
         try {
-            OperationStatus status = iamAdminService.deleteUserAttributes(request);
-
-            for (String user : request.getUsersList()) {
-                UserSearchMetadata metadata = UserSearchMetadata.newBuilder()
-                        .setUsername(user).build();
-
-                UserSearchRequest searchRequest = UserSearchRequest.newBuilder()
-                        .setClientId(request.getClientId())
-                        .setTenantId(request.getTenantId())
-                        .setAccessToken(request.getAccessToken())
-                        .setUser(metadata)
-                        .build();
-
-                UserRepresentation representation = iamAdminService.getUser(searchRequest);
-
-                if (representation != null) {
-                    UserProfile profile = this.convertToProfile(representation);
-
-                    com.veda.central.core.user.profile.api.UserProfileRequest req = com.veda.central.core.user.profile.api.UserProfileRequest.newBuilder()
-                            .setTenantId(request.getTenantId())
-                            .setProfile(profile)
-                            .build();
-
-                    userProfileService.updateUserProfile(req);
-                }
+            OperationStatus status;
+            try {
+                status = iamAdminService.deleteUserAttributes(request);
+            } catch (Exception ex) {
+                refreshUserProfilesAfterFailure(request.getTenantId(), request.getClientId(), request.getUsersList(), request.getPerformedBy());
+                throw ex;
             }
+            refreshUserProfiles(request.getTenantId(), request.getClientId(), request.getUsersList(), request.getPerformedBy());
             return status;
 
         } catch (Exception ex) {
@@ -602,41 +580,14 @@ public class UserManagementService {
      */
     public OperationStatus addRolesToUsers(AddUserRolesRequest request) {
         try {
-            OperationStatus response = iamAdminService.addRolesToUsers(request);
-
-            for (String user : request.getUsernamesList()) {
-                UserSearchMetadata metadata = UserSearchMetadata
-                        .newBuilder()
-                        .setUsername(user).build();
-
-                UserSearchRequest searchRequest = UserSearchRequest
-                        .newBuilder()
-                        .setClientId(request.getClientId())
-                        .setTenantId(request.getTenantId())
-                        .setAccessToken(request.getAccessToken())
-                        .setUser(metadata)
-                        .build();
-
-                UserRepresentation representation = iamAdminService.getUser(searchRequest);
-
-                if (representation != null) {
-                    UserProfile profile = this.convertToProfile(representation);
-
-                    com.veda.central.core.user.profile.api.UserProfileRequest req = com.veda.central.core.user.profile.api.UserProfileRequest.newBuilder()
-                            .setTenantId(request.getTenantId())
-                            .setProfile(profile)
-                            .build();
-
-
-                    UserProfile existingUser = userProfileService.getUserProfile(req);
-
-                    if (existingUser == null || StringUtils.isBlank(existingUser.getUsername())) {
-                        userProfileService.createUserProfile(req);
-                    } else {
-                        userProfileService.updateUserProfile(req);
-                    }
-                }
+            OperationStatus response;
+            try {
+                response = iamAdminService.addRolesToUsers(request);
+            } catch (Exception ex) {
+                refreshUserProfilesAfterFailure(request.getTenantId(), request.getClientId(), request.getUsernamesList(), request.getPerformedBy());
+                throw ex;
             }
+            refreshUserProfiles(request.getTenantId(), request.getClientId(), request.getUsernamesList(), request.getPerformedBy());
             return response;
 
         } catch (Exception ex) {
@@ -1274,51 +1225,19 @@ public class UserManagementService {
     }
 
     /**
-     * Synchronizes user databases.
+     * Starts a background synchronization of the user database of a tenant with its Keycloak realm.
      *
      * @param request the SynchronizeUserDBRequest object containing the necessary parameters for synchronization
-     * @return the OperationStatus object indicating the status of the synchronization operation
-     * @throws InternalServerException if an error occurs during the synchronization process
+     * @return the OperationStatus object indicating whether the synchronization was started
+     * @throws InternalServerException if an error occurs while starting the synchronization
      */
     public OperationStatus synchronizeUserDBs(SynchronizeUserDBRequest request) {
-        OperationStatus status = null;
         try {
-            Context ctx = Context.current().fork();
-            ctx.run(() -> {
-                GetAllResources resources = GetAllResources
-                        .newBuilder()
-                        .setClientId(request.getClientId())
-                        .setTenantId(request.getTenantId())
-                        .setResourceType(ResourceTypes.USER)
-                        .build();
-                GetAllResourcesResponse response = iamAdminService.getAllResources(resources);
-
-                if (response != null && !response.getUsersList().isEmpty()) {
-
-                    for (com.veda.central.core.iam.api.UserRepresentation userRepresentation : response.getUsersList()) {
-
-                        LOGGER.debug("User Name " + userRepresentation.getUsername());
-                        UserProfile profile = convertToProfile(userRepresentation);
-
-                        com.veda.central.core.user.profile.api.UserProfileRequest profileRequest = com.veda.central.core.user.profile.api.UserProfileRequest.newBuilder()
-                                .setTenantId(request.getTenantId())
-                                .setPerformedBy(Constants.SYSTEM)
-                                .setProfile(profile)
-                                .build();
-
-                        UserProfile exProfile = userProfileService.getUserProfile(profileRequest);
-
-                        if (exProfile == null || StringUtils.isBlank(exProfile.getUsername())) {
-                            userProfileService.createUserProfile(profileRequest);
-                        } else {
-                            userProfileService.updateUserProfile(profileRequest);
-                        }
-                    }
-                } else {
-                    LOGGER.debug("Empty");
-                }
-            });
-            return OperationStatus.newBuilder().setStatus(true).build();
+            boolean started = userDBSyncJob.start(request.getTenantId(), request.getClientId(), request.getFullSync());
+            if (!started) {
+                LOGGER.debug("User DB synchronization is already running for " + request.getTenantId());
+            }
+            return OperationStatus.newBuilder().setStatus(started).build();
 
         } catch (Exception ex) {
             String msg = "Error occurred at synchronizeAgentDBs " + ex.getMessage();
@@ -1327,6 +1246,37 @@ public class UserManagementService {
         }
     }
 
+    /**
+     * Retrieves the progress of the latest user database synchronization of a tenant.
+     *
+     * @param tenantId the tenant id
+     * @return the synchronization status
+     * @throws EntityNotFoundException if the tenant was never synchronized
+     */
+    public SynchronizeUserDBStatus getSynchronizationStatus(long tenantId) {
+        UserSyncCheckpoint checkpoint = userDBSyncJob.getCheckpoint(tenantId).orElseThrow(() ->
+                new EntityNotFoundException("Could not find a user DB synchronization for tenant " + tenantId));
+
+        SynchronizeUserDBStatus.Builder builder = SynchronizeUserDBStatus.newBuilder()
+                .setTenantId(tenantId)
+                .setStatus(checkpoint.getStatus())
+                .setMode(checkpoint.getMode())
+                .setProcessed(checkpoint.getProcessed())
+                .setCreated(checkpoint.getCreated())
+                .setUpdated(checkpoint.getUpdated())
+                .setUnchanged(checkpoint.getUnchanged());
+        if (checkpoint.getWatermark() != null) {
+            builder.setWatermark(checkpoint.getWatermark());
+        }
+        if (checkpoint.getError() != null) {
+            builder.setError(checkpoint.getError());
+        }
+        if (checkpoint.getUpdatedAt() != null) {
+            builder.setUpdatedAt(checkpoint.getUpdatedAt().toString());
+        }
+        return builder.build();
+    }
+
     public Map<String, Object> getUserInfo(String accessToken, long tenantId) {
         try {
             Map<String, Object> userInfo = iamAdminService.getUserInfo(accessToken, tenantId);
@@ -1342,7 +1292,31 @@ public class UserManagementService {
         }
     }
 
-    private UserProfile convertToProfile(UserRepresentation representation) {
+    /**
+     * Reloads the given users from the identity server and writes their profiles in one batch, creating the
+     * profiles that do not exist yet.
+     */
+    private void refreshUserProfiles(long tenantId, String clientId, List<String> usernames, String performedBy) {
+        List<UserProfile> profiles = new ArrayList<>();
+        for (UserRepresentation representation : iamAdminService.getEndUsers(tenantId, clientId, usernames)) {
+            profiles.add(convertToProfile(representation));
+        }
+        userProfileService.synchronizeUserProfiles(tenantId, profiles, performedBy);
+    }
+
+    /**
+     * Refreshes the given users after a bulk update failed part way, so that the users updated before the failure
+     * do not keep stale profiles. Errors are logged so that they do not hide the original failure.
+     */
+    private void refreshUserProfilesAfterFailure(long tenantId, String clientId, List<String> usernames, String performedBy) {
+        try {
+            refreshUserProfiles(tenantId, clientId, usernames, performedBy);
+        } catch (Exception ex) {
+            LOGGER.error("Error occurred while refreshing user profiles at " + tenantId + ", reason: " + ex.getMessage(), ex);
+        }
+    }
+
+    static UserProfile convertToProfile(UserRepresentation representation) {
         UserProfile.Builder profileBuilder = UserProfile.newBuilder();
         if (representation.getRealmRolesCount() > 0) {
             profileBuilder.addAllRealmRoles(representation.getRealmRolesList());
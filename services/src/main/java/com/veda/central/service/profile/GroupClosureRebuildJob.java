@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+
+package com.veda.central.service.profile;
+
+import com.veda.central.core.repo.user.GroupClosureRepository;
+import com.veda.central.core.repo.user.GroupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds the group closure table at startup when it does not cover every existing group or its direct
+ * edges differ from the group to group memberships, e.g. for groups created before the closure table was introduced.
+ */
+@Component
+public class GroupClosureRebuildJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GroupClosureRebuildJob.class);
+
+    private final UserProfileService userProfileService;
+    private final GroupRepository groupRepository;
+    private final GroupClosureRepository groupClosureRepository;
+
+    public GroupClosureRebuildJob(UserProfileService userProfileService, GroupRepository groupRepository, GroupClosureRepository groupClosureRepository) {
+        this.userProfileService = userProfileService;
+        this.groupRepository = groupRepository;
+        this.groupClosureRepository = groupClosureRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfRequired() {
+        try {
+            if (groupClosureRepository.countByDepth(0) == groupRepository.count()
+                    && groupClosureRepository.countStaleEdges() == 0
+                    && groupClosureRepository.countMissingEdges() == 0) {
+                return;
+            }
+
+            LOGGER.info("Group closure is out of date, rebuilding");
+            for (Long tenantId : groupRepository.findAllTenantIds()) {
+                userProfileService.rebuildGroupClosure(tenantId);
+            }
+            LOGGER.info("Group closure rebuild completed");
+
+            if (groupClosureRepository.countByDepth(GroupClosureRepository.MAX_DEPTH) > 0) {
+                LOGGER.warn("Group hierarchies reach the maximum nesting depth of " + GroupClosureRepository.MAX_DEPTH
+                        + ", ancestors beyond it are not part of the group closure");
+            }
+
+        } catch (Exception ex) {
+            LOGGER.error("Error occurred while rebuilding the group closure, reason: " + ex.getMessage(), ex);
+        }
+    }
+}
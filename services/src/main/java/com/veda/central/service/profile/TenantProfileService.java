@@ -50,6 +50,7 @@ import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -100,6 +101,7 @@ public class TenantProfileService {
         }
     }
 
+    @Transactional
     public com.veda.central.core.tenant.profile.api.Tenant updateTenant(com.veda.central.core.tenant.profile.api.Tenant tenant) {
         try {
             LOGGER.debug("Update tenant request received for tenant " + TenantMapper.getTenantInfoAsString(tenant));
@@ -139,6 +141,7 @@ public class TenantProfileService {
         }
     }
 
+    @Transactional(readOnly = true)
     public GetAllTenantsResponse getAllTenants(GetTenantsRequest request) {
         try {
             LOGGER.debug("Get all tenants request received");
@@ -181,6 +184,7 @@ public class TenantProfileService {
         }
     }
 
+    @Transactional(readOnly = true)
     public GetAllTenantsForUserResponse getAllTenantsForUser(GetAllTenantsForUserRequest request) {
         try {
             LOGGER.debug("Get all tenants for user " + request.getRequesterEmail() + " received");
@@ -203,6 +207,7 @@ public class TenantProfileService {
         }
     }
 
+    @Transactional(readOnly = true)
     public GetTenantResponse getTenant(GetTenantRequest request) {
         try {
             LOGGER.debug("Get tenant with Id " + request.getTenantId() + " received");
@@ -294,6 +299,7 @@ public class TenantProfileService {
         }
     }
 
+    @Transactional
     public UpdateStatusResponse updateTenantStatus(UpdateStatusRequest request) {
         try {
             LOGGER.debug("Update tenant request status received for " + request.getTenantId() + " received");
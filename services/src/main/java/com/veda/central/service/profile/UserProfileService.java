@@ -25,22 +25,24 @@ import com.veda.central.core.mapper.user.StatusUpdateMetadataMapper;
 import com.veda.central.core.mapper.user.UserProfileMapper;
 import com.veda.central.core.model.user.AttributeUpdateMetadata;
 import com.veda.central.core.model.user.Group;
+import com.veda.central.core.model.user.GroupClosureId;
 import com.veda.central.core.model.user.GroupToGroupMembership;
 import com.veda.central.core.model.user.StatusUpdateMetadata;
+import com.veda.central.core.model.user.UserAttribute;
 import com.veda.central.core.model.user.UserGroupMembership;
 import com.veda.central.core.model.user.UserGroupMembershipType;
 import com.veda.central.core.model.user.UserProfile;
+import com.veda.central.core.model.user.UserRole;
 import com.veda.central.core.repo.user.AttributeUpdateMetadataRepository;
 import com.veda.central.core.repo.user.GroupAttributeRepository;
+import com.veda.central.core.repo.user.GroupClosureRepository;
 import com.veda.central.core.repo.user.GroupMembershipRepository;
 import com.veda.central.core.repo.user.GroupMembershipTypeRepository;
 import com.veda.central.core.repo.user.GroupRepository;
 import com.veda.central.core.repo.user.GroupRoleRepository;
 import com.veda.central.core.repo.user.GroupToGroupMembershipRepository;
 import com.veda.central.core.repo.user.StatusUpdateMetadataRepository;
-import com.veda.central.core.repo.user.UserAttributeRepository;
 import com.veda.central.core.repo.user.UserProfileRepository;
-import com.veda.central.core.repo.user.UserRoleRepository;
 import com.veda.central.core.user.profile.api.DefaultGroupMembershipTypes;
 import com.veda.central.core.user.profile.api.GetAllGroupsResponse;
 import com.veda.central.core.user.profile.api.GetAllUserProfilesResponse;
@@ -49,30 +51,31 @@ import com.veda.central.core.user.profile.api.GetUpdateAuditTrailResponse;
 import com.veda.central.core.user.profile.api.GroupMembership;
 import com.veda.central.core.user.profile.api.GroupRequest;
 import com.veda.central.core.user.profile.api.Status;
-import com.veda.central.core.user.profile.api.UserAttribute;
 import com.veda.central.core.user.profile.api.UserGroupMembershipTypeRequest;
 import com.veda.central.core.user.profile.api.UserProfileAttributeUpdateMetadata;
 import com.veda.central.core.user.profile.api.UserProfileRequest;
 import com.veda.central.core.user.profile.api.UserProfileStatusUpdateMetadata;
 import com.veda.central.service.exceptions.InternalServerException;
 import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.ws.rs.NotFoundException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Service
@@ -89,12 +92,6 @@ public class UserProfileService {
     @Autowired
     private AttributeUpdateMetadataRepository attributeUpdateMetadataRepository;
 
-    @Autowired
-    private UserAttributeRepository userAttributeRepository;
-
-    @Autowired
-    private UserRoleRepository roleRepository;
-
     @Autowired
     private GroupRepository groupRepository;
 
@@ -113,6 +110,9 @@ public class UserProfileService {
     @Autowired
     private GroupMembershipTypeRepository groupMembershipTypeRepository;
 
+    @Autowired
+    private GroupClosureRepository groupClosureRepository;
+
 
     public com.veda.central.core.user.profile.api.UserProfile createUserProfile(UserProfileRequest request) {
         try {
@@ -139,6 +139,101 @@ public class UserProfileService {
         }
     }
 
+    /**
+     * Creates the user profiles of a tenant in JDBC batches, skipping the ones that already exist.
+     *
+     * @param tenantId the tenant id
+     * @param profiles the user profiles to create
+     * @return the number of profiles created
+     */
+    @Transactional
+    public int createUserProfiles(long tenantId, List<com.veda.central.core.user.profile.api.UserProfile> profiles) {
+        try {
+            LOGGER.debug("Request received to createUserProfiles for " + profiles.size() + " users at " + tenantId);
+
+            Map<String, com.veda.central.core.user.profile.api.UserProfile> profileMap = new HashMap<>();
+            for (com.veda.central.core.user.profile.api.UserProfile profile : profiles) {
+                profileMap.putIfAbsent(profile.getUsername() + "@" + tenantId, profile);
+            }
+
+            repository.findAllById(profileMap.keySet()).forEach(existing -> profileMap.remove(existing.getId()));
+
+            List<UserProfile> entities = new ArrayList<>();
+            profileMap.forEach((userId, profile) -> {
+                UserProfile entity = UserProfileMapper.createUserProfileEntityFromUserProfile(profile);
+                entity.setId(userId);
+                entity.setTenantId(tenantId);
+                entities.add(entity);
+            });
+
+            repository.persistAll(entities);
+            return entities.size();
+
+        } catch (Exception ex) {
+            String msg = "Error occurred while creating user profiles at " + tenantId + " reason :" + ex.getMessage();
+            LOGGER.error(msg);
+            throw new RuntimeException(msg, ex);
+        }
+    }
+
+    /**
+     * Brings the user profiles of a tenant in line with the given profiles in one transaction. A profile is only
+     * written when the hash of its content differs from the one stored by the previous synchronization; new
+     * profiles are inserted in JDBC batches.
+     *
+     * @param tenantId    the tenant id
+     * @param profiles    the current profiles, as read from the identity server
+     * @param performedBy the user recorded in the audit trail of updated profiles
+     * @return the number of profiles created, updated and left unchanged
+     */
+    @Transactional
+    public UserProfileSyncResult synchronizeUserProfiles(long tenantId, List<com.veda.central.core.user.profile.api.UserProfile> profiles,
+                                                         String performedBy) {
+        try {
+            Map<String, com.veda.central.core.user.profile.api.UserProfile> profileMap = new HashMap<>();
+            for (com.veda.central.core.user.profile.api.UserProfile profile : profiles) {
+                profileMap.put(profile.getUsername() + "@" + tenantId, profile);
+            }
+
+            Map<String, UserProfile> existingProfiles = new HashMap<>();
+            repository.findAllById(profileMap.keySet()).forEach(existing -> existingProfiles.put(existing.getId(), existing));
+
+            List<UserProfile> newEntities = new ArrayList<>();
+            int updated = 0;
+            int unchanged = 0;
+
+            for (Map.Entry<String, com.veda.central.core.user.profile.api.UserProfile> entry : profileMap.entrySet()) {
+                String contentHash = UserProfileMapper.computeContentHash(entry.getValue());
+                UserProfile exProfile = existingProfiles.get(entry.getKey());
+                UserProfile entity = UserProfileMapper.createUserProfileEntityFromUserProfile(entry.getValue());
+
+                if (exProfile == null) {
+                    entity.setId(entry.getKey());
+                    entity.setTenantId(tenantId);
+                    entity.setContentHash(contentHash);
+                    newEntities.add(entity);
+
+                } else if (contentHash.equals(exProfile.getContentHash())) {
+                    unchanged++;
+
+                } else {
+                    applyUserProfile(exProfile, entity, performedBy);
+                    exProfile.setContentHash(contentHash);
+                    updated++;
+                }
+            }
+
+            repository.persistAll(newEntities);
+            return new UserProfileSyncResult(newEntities.size(), updated, unchanged);
+
+        } catch (Exception ex) {
+            String msg = "Error occurred while synchronizing user profiles at " + tenantId + " reason :" + ex.getMessage();
+            LOGGER.error(msg);
+            throw new RuntimeException(msg, ex);
+        }
+    }
+
+    @Transactional
     public com.veda.central.core.user.profile.api.UserProfile updateUserProfile(UserProfileRequest request) {
         try {
             LOGGER.debug("Request received to updateUserProfile for " + request.getProfile().getUsername() + "at " + request.getTenantId());
@@ -150,25 +245,13 @@ public class UserProfileService {
 
             if (exEntity.isPresent()) {
                 UserProfile entity = UserProfileMapper.createUserProfileEntityFromUserProfile(request.getProfile());
-                Set<AttributeUpdateMetadata> metadata = AttributeUpdateMetadataMapper.
-                        createAttributeUpdateMetadataEntity(exEntity.get(), entity, request.getPerformedBy());
-
-                entity.setAttributeUpdateMetadata(metadata);
-                entity.setId(userId);
-                entity.setTenantId(request.getTenantId());
-                entity.setCreatedAt(exEntity.get().getCreatedAt());
-
                 UserProfile exProfile = exEntity.get();
 
-                if (exProfile.getUserAttribute() != null) {
-                    userAttributeRepository.deleteAll(exProfile.getUserAttribute());
-                }
+                applyUserProfile(exProfile, entity, request.getPerformedBy());
+                // The profile no longer matches the content last synchronized from the identity server
+                exProfile.setContentHash(null);
 
-                if (exProfile.getUserRole() != null) {
-                    roleRepository.deleteAll(exProfile.getUserRole());
-                }
-
-                repository.save(entity);
+                repository.save(exProfile);
                 return request.getProfile();
 
             } else {
@@ -184,6 +267,7 @@ public class UserProfileService {
         }
     }
 
+    @Transactional(readOnly = true)
     public com.veda.central.core.user.profile.api.UserProfile getUserProfile(UserProfileRequest request) {
         try {
             LOGGER.debug("Request received to getUserProfile for " + request.getProfile().getUsername() + "at " + request.getTenantId());
@@ -207,6 +291,7 @@ public class UserProfileService {
         }
     }
 
+    @Transactional
     public com.veda.central.core.user.profile.api.UserProfile deleteUserProfile(UserProfileRequest request) {
         try {
             LOGGER.debug("Request received to deleteUserProfile for " + request.getProfile().getUsername() + "at " + request.getTenantId());
@@ -234,6 +319,7 @@ public class UserProfileService {
         }
     }
 
+    @Transactional(readOnly = true)
     public GetAllUserProfilesResponse getAllUserProfilesInTenant(UserProfileRequest request) {
         try {
             LOGGER.debug("Request received to getAllUserProfilesInTenant for " + request.getTenantId());
@@ -269,50 +355,23 @@ public class UserProfileService {
         }
     }
 
+    @Transactional(readOnly = true)
     public GetAllUserProfilesResponse findUserProfilesByAttributes(UserProfileRequest request) {
         try {
             LOGGER.debug("Request received to findUserProfilesByAttributes at " + request.getTenantId());
 
-            List<UserAttribute> attributeList = request.getProfile().getAttributesList();
-            List<UserProfile> selectedProfiles = new ArrayList<>();
-            List<com.veda.central.core.user.profile.api.UserProfile> userProfileList = new ArrayList<>();
+            Map<String, Set<String>> attributes = new HashMap<>();
+            request.getProfile().getAttributesList().forEach(atr ->
+                    attributes.computeIfAbsent(atr.getKey(), key -> new HashSet<>()).addAll(atr.getValuesList()));
 
-            attributeList.forEach(atr -> {
-                List<String> values = atr.getValuesList();
-                values.forEach(val -> {
-                    List<UserProfile> userAttributes = userAttributeRepository.findFilteredUserProfiles(atr.getKey(), val);
-                    if (userAttributes == null || userAttributes.isEmpty()) {
-                        return;
-                    }
+            List<UserProfile> selectedProfiles = repository.findByAttributes(request.getTenantId(), attributes,
+                    request.getOffset(), request.getLimit());
 
-                    if (selectedProfiles.isEmpty()) {
-                        selectedProfiles.addAll(userAttributes);
-                    } else {
-                        List<UserProfile> profiles = userAttributes.stream().filter(newProf -> {
-                            AtomicBoolean matched = new AtomicBoolean(false);
-                            selectedProfiles.forEach(selectedProfile -> {
-                                if (selectedProfile.getId().equals(newProf.getId())) {
-                                    matched.set(true);
-                                }
-                            });
-                            return matched.get();
-                        }).toList();
-                        selectedProfiles.clear();
-                        selectedProfiles.addAll(profiles);
-                    }
-                });
-            });
-
-            if (!selectedProfiles.isEmpty()) {
-                selectedProfiles.forEach(userProfile -> {
-                    com.veda.central.core.user.profile.api.UserProfile prof = UserProfileMapper.createUserProfileFromUserProfileEntity(userProfile, null);
-                    userProfileList.add(prof);
-                });
-                return GetAllUserProfilesResponse.newBuilder().addAllProfiles(userProfileList).build();
+            List<com.veda.central.core.user.profile.api.UserProfile> userProfileList = selectedProfiles.stream()
+                    .map(userProfile -> UserProfileMapper.createUserProfileFromUserProfileEntity(userProfile, null))
+                    .toList();
 
-            } else {
-                return GetAllUserProfilesResponse.newBuilder().build();
-            }
+            return GetAllUserProfilesResponse.newBuilder().addAllProfiles(userProfileList).build();
 
         } catch (Exception ex) {
             String msg = "Error occurred while fetching user profile for " + request.getProfile().getUsername() + "at " + request.getTenantId();
@@ -360,6 +419,7 @@ public class UserProfileService {
         }
     }
 
+    @Transactional
     public com.veda.central.core.user.profile.api.Group createGroup(GroupRequest request) {
         try {
             LOGGER.debug("Request received to createGroup from tenant" + request.getTenantId());
@@ -398,6 +458,7 @@ public class UserProfileService {
                     GroupMapper.setParentGroupMembership(parent.get(), entity);
                 }
                 savedGroup = groupRepository.save(entity);
+                groupClosureRepository.insertClosureOfGroups(List.of(effectiveId));
             }
 
             Optional<Group> exOP = groupRepository.findById(effectiveId);
@@ -439,6 +500,7 @@ public class UserProfileService {
         }
     }
 
+    @Transactional
     public com.veda.central.core.user.profile.api.Group updateGroup(GroupRequest request) {
         try {
             LOGGER.debug("Request received to updateGroup for group with id  " + request.getGroup().getId() + " at tenant " + request.getTenantId());
@@ -496,6 +558,7 @@ public class UserProfileService {
         }
     }
 
+    @Transactional
     public void deleteGroup(GroupRequest request) {
         try {
             LOGGER.debug("Request received to deleteGroup for " + request.getGroup().getId() + "at " + request.getTenantId());
@@ -520,12 +583,25 @@ public class UserProfileService {
 
                 com.veda.central.core.user.profile.api.Group prof = GroupMapper.createGroup(entity, ownerId);
 
+                List<String> descendantIds = new ArrayList<>(groupClosureRepository.findDescendantIds(effectiveId));
+
                 groupRepository.delete(op.get());
+                groupClosureRepository.deleteAllByGroupId(effectiveId);
+                descendantIds.remove(effectiveId);
 
                 List<Group> groupList = groupRepository.findByParentId(entity.getId());
 
                 if (groupList != null && !groupList.isEmpty()) {
                     groupRepository.deleteAll(groupList);
+                    groupList.forEach(group -> {
+                        groupClosureRepository.deleteAllByGroupId(group.getId());
+                        descendantIds.remove(group.getId());
+                    });
+                }
+
+                if (!descendantIds.isEmpty()) {
+                    groupClosureRepository.deleteAllByDescendantIds(descendantIds);
+                    groupClosureRepository.insertClosureOfGroups(descendantIds);
                 }
 
             } else {
@@ -540,6 +616,7 @@ public class UserProfileService {
         }
     }
 
+    @Transactional(readOnly = true)
     public com.veda.central.core.user.profile.api.Group getGroup(GroupRequest request) {
         LOGGER.debug("Request received to getGroup for group " + request.getGroup().getId() + "at " + request.getTenantId());
 
@@ -564,6 +641,7 @@ public class UserProfileService {
         }
     }
 
+    @Transactional(readOnly = true)
     public GetAllGroupsResponse getAllGroups(GroupRequest request) {
         try {
             LOGGER.debug("Request received to getAllGroups for " + request.getTenantId());
@@ -575,25 +653,8 @@ public class UserProfileService {
 
             List<com.veda.central.core.user.profile.api.Group> groupList = new ArrayList<>();
             if (groups != null && !groups.isEmpty()) {
-
-                for (Group group : groups) {
-                    List<UserGroupMembership> userGroupMemberships = groupMembershipRepository.findAllByGroupId(group.getId());
-                    String ownerId = null;
-
-                    Optional<UserGroupMembership> ownerOptional = userGroupMemberships.stream()
-                            .filter(userGroupMembership -> userGroupMembership
-                                    .getUserGroupMembershipType()
-                                    .getId()
-                                    .equals(DefaultGroupMembershipTypes.OWNER.name()))
-                            .findFirst();
-
-                    if (ownerOptional.isPresent()) {
-                        ownerId = ownerOptional.get().getUserProfile().getUsername();
-                    }
-
-                    com.veda.central.core.user.profile.api.Group gr = GroupMapper.createGroup(group, ownerId);
-                    groupList.add(gr);
-                }
+                Map<String, String> owners = getGroupOwners(groups);
+                groups.forEach(group -> groupList.add(GroupMapper.createGroup(group, owners.get(group.getId()))));
             }
 
             return GetAllGroupsResponse.newBuilder().addAllGroups(groupList).build();
@@ -691,6 +752,7 @@ public class UserProfileService {
         }
     }
 
+    @Transactional
     public com.veda.central.core.user.profile.api.Status addChildGroupToParentGroup(com.veda.central.core.user.profile.api.GroupToGroupMembership request) {
         try {
             LOGGER.debug("Request received to addChildGroupToParentGroup for " + request.getTenantId());
@@ -710,6 +772,21 @@ public class UserProfileService {
                 throw new NotFoundException(msg);
             }
 
+            if (groupClosureRepository.existsById(new GroupClosureId(effectiveChildId, effectiveParentId))) {
+                String msg = "Group " + parentId + " is already a descendant of group " + childId;
+                LOGGER.error(msg);
+                throw new IllegalArgumentException(msg);
+            }
+
+            int depth = groupClosureRepository.findMaxAncestorDepth(effectiveParentId) + 1
+                    + groupClosureRepository.findMaxDescendantDepth(effectiveChildId);
+            if (depth > GroupClosureRepository.MAX_DEPTH) {
+                String msg = "Adding group " + childId + " to group " + parentId + " exceeds the maximum group nesting depth of "
+                        + GroupClosureRepository.MAX_DEPTH;
+                LOGGER.error(msg);
+                throw new IllegalArgumentException(msg);
+            }
+
             List<GroupToGroupMembership> groupToGroupMemberships = groupToGroupMembershipRepository.findByChildIdAndParentId(effectiveChildId, effectiveParentId);
             if (groupToGroupMemberships == null || groupToGroupMemberships.isEmpty()) {
 
@@ -720,6 +797,7 @@ public class UserProfileService {
                 if (saved.getId() != null) {
                     childEntity.get().setParentId(parentId);
                     groupRepository.save(childEntity.get());
+                    refreshGroupClosure(effectiveChildId);
                     return com.veda.central.core.user.profile.api.Status.newBuilder().setStatus(true).build();
                 }
             }
@@ -735,6 +813,7 @@ public class UserProfileService {
         }
     }
 
+    @Transactional
     public com.veda.central.core.user.profile.api.Status removeChildGroupFromParentGroup(com.veda.central.core.user.profile.api.GroupToGroupMembership request) {
         try {
             LOGGER.debug("Request received to removeChildGroupFromParentGroup for " + request.getTenantId());
@@ -761,6 +840,7 @@ public class UserProfileService {
 
             childEntity.get().setParentId("");
             groupRepository.save(childEntity.get());
+            refreshGroupClosure(effectiveChildId);
             return com.veda.central.core.user.profile.api.Status.newBuilder().setStatus(true).build();
 
         } catch (Exception ex) {
@@ -770,6 +850,7 @@ public class UserProfileService {
         }
     }
 
+    @Transactional(readOnly = true)
     public GetAllGroupsResponse getAllParentGroupsOfGroup(GroupRequest request) {
         try {
             LOGGER.debug("Request received to getAllParentGroupsOfGroup for " + request.getTenantId());
@@ -778,31 +859,14 @@ public class UserProfileService {
             long tenantId = request.getTenantId();
 
             String effectiveId = groupId + "@" + tenantId;
-            Optional<Group> groups = groupRepository.findById(effectiveId);
+            List<Group> groups = groupRepository.findGroupWithAncestors(effectiveId);
 
-            if (groups.isEmpty()) {
-                return GetAllGroupsResponse.newBuilder().build();
+            Map<String, String> owners = getGroupOwners(groups);
+            List<com.veda.central.core.user.profile.api.Group> serviceGroupList = groups.stream()
+                    .map(group -> GroupMapper.createGroup(group, owners.get(group.getId())))
+                    .toList();
 
-            } else {
-                List<Group> groupList = new ArrayList<>();
-                groupList.add(groups.get());
-                Map<String, Group> groupMap = getAllUniqueGroups(groupList, null);
-                List<com.veda.central.core.user.profile.api.Group> serviceGroupList = new ArrayList<>();
-
-                groupMap.keySet().forEach(gr -> {
-                    List<UserGroupMembership> userGroupMemberships = groupMembershipRepository.findAllByGroupId(effectiveId);
-                    String ownerId = null;
-                    for (UserGroupMembership userGroupMembership : userGroupMemberships) {
-                        if (userGroupMembership.getUserGroupMembershipType().getId().equals(DefaultGroupMembershipTypes.OWNER.name())) {
-                            ownerId = userGroupMembership.getUserProfile().getUsername();
-                        }
-                    }
-
-                    serviceGroupList.add(GroupMapper.createGroup(groupMap.get(gr), ownerId));
-                });
-
-                return GetAllGroupsResponse.newBuilder().addAllGroups(serviceGroupList).build();
-            }
+            return GetAllGroupsResponse.newBuilder().addAllGroups(serviceGroupList).build();
 
         } catch (Exception ex) {
             String msg = "Error occurred while fetching all parent groups for group " + request.getGroup().getId() + " in tenant " + request.getTenantId() + " reason :" + ex.getMessage();
@@ -811,6 +875,7 @@ public class UserProfileService {
         }
     }
 
+    @Transactional(readOnly = true)
     public GetAllGroupsResponse getAllGroupsOfUser(UserProfileRequest request) {
         try {
             LOGGER.debug("Request received to getAllGroupsOfUser for " + request.getTenantId());
@@ -819,40 +884,12 @@ public class UserProfileService {
             String username = request.getProfile().getUsername();
             String userId = username + "@" + tenantId;
 
-            List<UserGroupMembership> userGroupMemberships = groupMembershipRepository.findAllByUserProfileId(userId);
-            List<Group> groups = new ArrayList<>();
-
-            if (userGroupMemberships != null && !userGroupMemberships.isEmpty()) {
-                userGroupMemberships.forEach(userGroupMembership -> {
-                    AtomicBoolean toBeAdded = new AtomicBoolean(true);
-                    groups.forEach(le -> {
-                        if (le.getId().equals(userGroupMembership.getGroup().getId())) {
-                            toBeAdded.set(false);
-                        }
-                    });
+            List<Group> groups = groupRepository.findAllGroupsOfUserWithAncestors(userId);
 
-                    if (toBeAdded.get()) {
-                        groups.add(userGroupMembership.getGroup());
-                    }
-                });
-
-            }
-
-            Map<String, Group> groupMap = getAllUniqueGroups(groups, null);
-            List<com.veda.central.core.user.profile.api.Group> groupList = new ArrayList<>();
-
-            groupMap.keySet().forEach(gr -> {
-                List<UserGroupMembership> memberships = groupMembershipRepository.findAllByGroupId(gr);
-
-                String ownerId = null;
-                for (UserGroupMembership userGroupMembership : memberships) {
-                    if (userGroupMembership.getUserGroupMembershipType().getId().equals(DefaultGroupMembershipTypes.OWNER.name())) {
-                        ownerId = userGroupMembership.getUserProfile().getUsername();
-                        break;
-                    }
-                }
-                groupList.add(GroupMapper.createGroup(groupMap.get(gr), ownerId));
-            });
+            Map<String, String> owners = getGroupOwners(groups);
+            List<com.veda.central.core.user.profile.api.Group> groupList = groups.stream()
+                    .map(group -> GroupMapper.createGroup(group, owners.get(group.getId())))
+                    .toList();
 
             return GetAllGroupsResponse.newBuilder().addAllGroups(groupList).build();
 
@@ -901,6 +938,7 @@ public class UserProfileService {
         }
     }
 
+    @Transactional(readOnly = true)
     public GetAllUserProfilesResponse getAllChildUsers(GroupRequest request) {
         try {
             LOGGER.debug("Request received to getAllChildUsers in tenant " + request.getTenantId() +
@@ -953,6 +991,7 @@ public class UserProfileService {
         }
     }
 
+    @Transactional(readOnly = true)
     public GetAllGroupsResponse getAllChildGroups(GroupRequest request) {
         try {
             LOGGER.debug("Request received to getAllChildGroups in tenant " + request.getTenantId() +
@@ -979,16 +1018,9 @@ public class UserProfileService {
                 });
             }
 
-            selectedGroupMap.values().forEach(group -> {
-                List<UserGroupMembership> groupMemberships = groupMembershipRepository.findAllByGroupId(group.getId());
-                AtomicReference<String> ownerId = new AtomicReference<>();
-                groupMemberships.forEach(grm -> {
-                    if (grm.getUserGroupMembershipType().getId().equals(DefaultGroupMembershipTypes.OWNER.name())) {
-                        ownerId.set(grm.getUserProfile().getUsername());
-                    }
-                });
-                groupList.add(GroupMapper.createGroup(group, ownerId.get()));
-            });
+            List<Group> childGroups = new ArrayList<>(selectedGroupMap.values());
+            Map<String, String> owners = getGroupOwners(childGroups);
+            childGroups.forEach(group -> groupList.add(GroupMapper.createGroup(group, owners.get(group.getId()))));
 
             return GetAllGroupsResponse.newBuilder().addAllGroups(groupList).build();
 
@@ -1089,6 +1121,39 @@ public class UserProfileService {
         }
     }
 
+    public Status isTransitiveGroupMember(GroupMembership request) {
+        try {
+            LOGGER.debug("Request received to check transitive membership in tenant " + request.getTenantId()
+                    + " of user " + request.getUsername() + " in group " + request.getGroupId());
+
+            long tenantId = request.getTenantId();
+            String userId = request.getUsername() + "@" + tenantId;
+            String effectiveGroupId = request.getGroupId() + "@" + tenantId;
+
+            long memberships = groupClosureRepository.countTransitiveMemberships(userId, effectiveGroupId);
+            return Status.newBuilder().setStatus(memberships > 0).build();
+
+        } catch (Exception ex) {
+            String msg = "Error occurred while checking transitive membership in tenant " + request.getTenantId()
+                    + " of user " + request.getUsername() + " in group " + request.getGroupId();
+            LOGGER.error(msg);
+            throw new RuntimeException(msg, ex);
+        }
+    }
+
+    /**
+     * Rebuilds the group closure of a tenant from its group to group memberships.
+     *
+     * @param tenantId the tenant id
+     */
+    @Transactional
+    public void rebuildGroupClosure(long tenantId) {
+        LOGGER.debug("Rebuilding group closure for tenant " + tenantId);
+        groupClosureRepository.deleteAllByTenantId(tenantId);
+        groupClosureRepository.insertClosureOfTenant(tenantId);
+    }
+
+    @Transactional(readOnly = true)
     public List<Group> getGroupsOfUser(UserProfileRequest request) {
         try {
             LOGGER.debug("Request received to getAllGroupsOfUser for " + request.getTenantId());
@@ -1098,47 +1163,113 @@ public class UserProfileService {
             String userId = username + "@" + tenantId;
 
             List<UserGroupMembership> userGroupMemberships = groupMembershipRepository.findAllByUserProfileId(userId);
-            return userGroupMemberships.stream()
+            List<Group> groups = userGroupMemberships.stream()
                     .map(UserGroupMembership::getGroup)
                     .filter(Objects::nonNull)
                     .collect(Collectors.toList());
+            groups.forEach(group -> Hibernate.initialize(group.getGroupRole()));
+            return groups;
 
         } catch (Exception ex) {
             return Collections.emptyList();
         }
     }
 
-    private Map<String, Group> getAllUniqueGroups(List<Group> leaveGroups, Map<String, Group> allParentGroups) {
-        if (allParentGroups == null) {
-            allParentGroups = new HashMap<>();
+    /**
+     * Recomputes the ancestors of a group and all of its descendants after the group's parents have changed.
+     */
+    private void refreshGroupClosure(String groupId) {
+        List<String> groupIds = groupClosureRepository.findDescendantIds(groupId);
+        if (groupIds.isEmpty()) {
+            groupIds = List.of(groupId);
         }
 
-        if (leaveGroups != null && !leaveGroups.isEmpty()) {
-            for (Group gr : leaveGroups) {
-                List<GroupToGroupMembership> memberships = groupToGroupMembershipRepository.findAllByChildId(gr.getId());
-                List<Group> leaves = new ArrayList<>();
-                allParentGroups.put(gr.getId(), gr);
+        groupClosureRepository.deleteAllByDescendantIds(groupIds);
+        groupClosureRepository.insertClosureOfGroups(groupIds);
+    }
 
-                if (memberships != null && !memberships.isEmpty()) {
-                    memberships.forEach(mem -> {
-                        AtomicBoolean toBeAdded = new AtomicBoolean(true);
-                        leaves.forEach(le -> {
-                            if (le.getId().equals(mem.getParent().getId())) {
-                                toBeAdded.set(false);
-                            }
-                        });
-
-                        if (toBeAdded.get()) {
-                            leaves.add(mem.getParent());
-                        }
-                    });
+    private Map<String, String> getGroupOwners(List<Group> groups) {
+        Map<String, String> owners = new HashMap<>();
 
-                    getAllUniqueGroups(leaves, allParentGroups);
-                }
-            }
+        if (groups != null && !groups.isEmpty()) {
+            List<String> groupIds = groups.stream().map(Group::getId).toList();
+            groupMembershipRepository.findGroupOwners(groupIds, DefaultGroupMembershipTypes.OWNER.name())
+                    .forEach(owner -> owners.putIfAbsent(owner.getGroupId(), owner.getUsername()));
         }
 
-        return allParentGroups;
+        return owners;
     }
 
+
+    /**
+     * Merges the content of the given profile into a managed one. Attribute and role rows are compared as sets, so
+     * only the rows that were added are inserted and only the rows that disappeared are deleted, as orphans. The
+     * same differences are recorded in the audit trail, along with the changed profile fields.
+     */
+    private void applyUserProfile(UserProfile exProfile, UserProfile profile, String performedBy) {
+        Set<AttributeUpdateMetadata> metadata = AttributeUpdateMetadataMapper.
+                createAttributeUpdateMetadataEntity(exProfile, profile, performedBy);
+
+        Map<String, UserAttribute> exAttributes = new HashMap<>();
+        exProfile.getUserAttribute().forEach(atr -> exAttributes.put(atr.getKey() + "\n" + atr.getValue(), atr));
+        Map<String, UserAttribute> newAttributes = new HashMap<>();
+        profile.getUserAttribute().forEach(atr -> newAttributes.put(atr.getKey() + "\n" + atr.getValue(), atr));
+
+        List<UserAttribute> removedAttributes = new ArrayList<>();
+        exAttributes.forEach((key, atr) -> {
+            if (!newAttributes.containsKey(key)) {
+                removedAttributes.add(atr);
+            }
+        });
+        List<UserAttribute> addedAttributes = new ArrayList<>();
+        newAttributes.forEach((key, atr) -> {
+            if (!exAttributes.containsKey(key)) {
+                addedAttributes.add(atr);
+            }
+        });
+
+        Map<String, UserRole> exRoles = new HashMap<>();
+        exProfile.getUserRole().forEach(role -> exRoles.put(role.getType() + "\n" + role.getValue(), role));
+        Map<String, UserRole> newRoles = new HashMap<>();
+        profile.getUserRole().forEach(role -> newRoles.put(role.getType() + "\n" + role.getValue(), role));
+
+        List<UserRole> removedRoles = new ArrayList<>();
+        exRoles.forEach((key, role) -> {
+            if (!newRoles.containsKey(key)) {
+                removedRoles.add(role);
+            }
+        });
+        List<UserRole> addedRoles = new ArrayList<>();
+        newRoles.forEach((key, role) -> {
+            if (!exRoles.containsKey(key)) {
+                addedRoles.add(role);
+            }
+        });
+
+        metadata.addAll(AttributeUpdateMetadataMapper.createAttributeUpdateMetadataEntity(exProfile,
+                addedAttributes, removedAttributes, addedRoles, removedRoles, performedBy));
+        // Saved directly rather than through the lazy audit collection, which would load the profile's whole history
+        metadata.forEach(m -> m.setUserProfile(exProfile));
+        if (!metadata.isEmpty()) {
+            attributeUpdateMetadataRepository.saveAll(metadata);
+        }
+
+        exProfile.setEmailAddress(profile.getEmailAddress());
+        exProfile.setFirstName(profile.getFirstName());
+        exProfile.setLastName(profile.getLastName());
+        exProfile.setStatus(profile.getStatus());
+        exProfile.setType(profile.getType());
+
+        removedAttributes.forEach(exProfile.getUserAttribute()::remove);
+        addedAttributes.forEach(atr -> {
+            atr.setUserProfile(exProfile);
+            exProfile.getUserAttribute().add(atr);
+        });
+
+        removedRoles.forEach(exProfile.getUserRole()::remove);
+        addedRoles.forEach(role -> {
+            role.setUserProfile(exProfile);
+            exProfile.getUserRole().add(role);
+        });
+    }
 }